@@ -2,6 +2,7 @@ package com.anthropic.claude.sdk;
 
 import com.anthropic.claude.sdk.client.ClaudeClient;
 import com.anthropic.claude.sdk.internal.QueryRunner;
+import com.anthropic.claude.sdk.internal.SessionMirror;
 import com.anthropic.claude.sdk.internal.StreamingQuery;
 import com.anthropic.claude.sdk.mcp.SdkMcpServer;
 import com.anthropic.claude.sdk.protocol.MessageParser;
@@ -144,10 +145,11 @@ public class ClaudeAgentSdk {
 
         StreamingQuery streamingQuery = new StreamingQuery(
                 transport,
-                new MessageParser(),
+                new MessageParser(safeOptions.getOutputType()),
                 safeOptions.getCanUseTool(),
                 safeOptions.resolvedHooks(),
-                sdkServers
+                sdkServers,
+                SessionMirror.forOptions(safeOptions)
         );
 
         streamingQuery.start();
@@ -155,15 +157,7 @@ public class ClaudeAgentSdk {
 
         // Send prompt as a user message
         if (prompt != null && !prompt.isEmpty()) {
-            Map<String, Object> data = new HashMap<>();
-            data.put("type", "user");
-            Map<String, Object> message = new HashMap<>();
-            message.put("role", "user");
-            message.put("content", prompt);
-            data.put("message", message);
-            data.put("parent_tool_use_id", null);
-            data.put("session_id", "default");
-            streamingQuery.sendMessage(data).join();
+            streamingQuery.sendUserMessage(prompt, "default").join();
         }
 
         return new Query(streamingQuery);
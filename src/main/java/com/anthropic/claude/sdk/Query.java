@@ -1,8 +1,10 @@
 package com.anthropic.claude.sdk;
 
 import com.anthropic.claude.sdk.internal.StreamingQuery;
+import com.anthropic.claude.sdk.protocol.IncrementalStructuredOutputReader;
 import com.anthropic.claude.sdk.types.messages.Message;
 import com.anthropic.claude.sdk.types.options.PermissionMode;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -30,6 +32,43 @@ public final class Query implements AutoCloseable, Iterable<Message> {
         return stream().iterator();
     }
 
+    /**
+     * Consume messages until the result arrives and return its structured output bound to {@code type}.
+     */
+    public <T> T receiveStructuredOutput(Class<T> type) {
+        return streamingQuery.awaitStructuredOutput(type);
+    }
+
+    /**
+     * Consume messages until the result arrives and return its structured output bound to {@code type}.
+     */
+    public <T> T receiveStructuredOutput(TypeReference<T> type) {
+        return streamingQuery.awaitStructuredOutput(type.getType());
+    }
+
+    /**
+     * Stream the elements of a top-level array structured output as soon as each one is complete.
+     * Enable {@code includePartialMessages} to receive elements while the output is still being generated.
+     */
+    public <T> Stream<T> streamStructuredOutput(Class<T> itemType) {
+        return streamingQuery.streamStructuredOutput(IncrementalStructuredOutputReader.arrayElements(itemType));
+    }
+
+    /**
+     * Stream the elements of the array in {@code field} of an object structured output as each one completes.
+     */
+    public <T> Stream<T> streamStructuredOutput(String field, Class<T> itemType) {
+        return streamingQuery.streamStructuredOutput(
+                IncrementalStructuredOutputReader.arrayElements(field, itemType));
+    }
+
+    /**
+     * Stream structured output items through the given reader as soon as each one is complete.
+     */
+    public <T> Stream<T> streamStructuredOutput(IncrementalStructuredOutputReader<T> reader) {
+        return streamingQuery.streamStructuredOutput(reader);
+    }
+
     // Control methods - each sends a control request and waits for response
 
     public CompletableFuture<Void> interrupt() {
@@ -1,20 +1,27 @@
 package com.anthropic.claude.sdk.client;
 
 import com.anthropic.claude.sdk.exceptions.CLIConnectionException;
+import com.anthropic.claude.sdk.internal.SessionMirror;
 import com.anthropic.claude.sdk.protocol.MessageParser;
 import com.anthropic.claude.sdk.transport.SubprocessTransport;
 import com.anthropic.claude.sdk.transport.Transport;
 import com.anthropic.claude.sdk.types.messages.Message;
 import com.anthropic.claude.sdk.types.options.ClaudeAgentOptions;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.Closeable;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Claude Agent SDK Client for bidirectional sessions.
@@ -44,6 +51,7 @@ public class ClaudeClient implements Closeable {
 
     private final ClaudeAgentOptions options;
     private final MessageParser parser;
+    private final SessionMirror sessionMirror;
     private Transport transport;
     private ObjectMapper objectMapper;
 
@@ -60,7 +68,8 @@ public class ClaudeClient implements Closeable {
      */
     public ClaudeClient(ClaudeAgentOptions options) {
         this.options = options;
-        this.parser = new MessageParser();
+        this.parser = new MessageParser(options.getOutputType());
+        this.sessionMirror = SessionMirror.forOptions(options);
         this.objectMapper = new ObjectMapper();
     }
 
@@ -70,7 +79,8 @@ public class ClaudeClient implements Closeable {
     public ClaudeClient(ClaudeAgentOptions options, Transport transport) {
         this.options = options;
         this.transport = transport;
-        this.parser = new MessageParser();
+        this.parser = new MessageParser(options.getOutputType());
+        this.sessionMirror = SessionMirror.forOptions(options);
         this.objectMapper = new ObjectMapper();
     }
 
@@ -123,7 +133,8 @@ public class ClaudeClient implements Closeable {
 
     /**
      * Receive messages from Claude.
-     * This returns a stream of parsed Message objects.
+     * This returns a stream of parsed Message objects. The session store mirror, if any, is
+     * flushed and stopped once the stream is exhausted or closed.
      *
      * @return Stream of messages from Claude
      */
@@ -132,17 +143,47 @@ public class ClaudeClient implements Closeable {
             throw new IllegalStateException("Client not connected. Call query() first.");
         }
 
-        return transport.readLines()
+        Stream<Message> messages = transport.readLines()
                 .map(line -> {
                     try {
                         logger.debug("Received: {}", line);
-                        return parser.parse(line);
+                        if (sessionMirror == null) {
+                            return parser.parse(line);
+                        }
+                        JsonNode root = objectMapper.readTree(line);
+                        sessionMirror.mirror(root);
+                        return parser.parse(root);
                     } catch (Exception e) {
                         logger.error("Failed to parse message: {}", line, e);
                         return null;
                     }
                 })
                 .filter(msg -> msg != null);
+        return sessionMirror == null ? messages : closingAtEnd(messages, sessionMirror::close);
+    }
+
+    /**
+     * Run {@code onEnd} once the stream is exhausted or closed, whichever comes first.
+     */
+    private static Stream<Message> closingAtEnd(Stream<Message> messages, Runnable onEnd) {
+        Iterator<Message> iterator = messages.iterator();
+        Spliterator<Message> spliterator = new Spliterators.AbstractSpliterator<Message>(
+                Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL
+        ) {
+            @Override
+            public boolean tryAdvance(Consumer<? super Message> action) {
+                if (iterator.hasNext()) {
+                    action.accept(iterator.next());
+                    return true;
+                }
+                onEnd.run();
+                return false;
+            }
+        };
+        return StreamSupport.stream(spliterator, false)
+                .onClose(messages::close)
+                .onClose(onEnd);
     }
 
     @Override
@@ -150,6 +191,9 @@ public class ClaudeClient implements Closeable {
         if (transport != null) {
             transport.close();
         }
+        if (sessionMirror != null) {
+            sessionMirror.close();
+        }
     }
 
 }
@@ -2,8 +2,10 @@ package com.anthropic.claude.sdk.client;
 
 import com.anthropic.claude.sdk.Query;
 import com.anthropic.claude.sdk.exceptions.CLIConnectionException;
+import com.anthropic.claude.sdk.internal.SessionMirror;
 import com.anthropic.claude.sdk.internal.StreamingQuery;
 import com.anthropic.claude.sdk.mcp.SdkMcpServer;
+import com.anthropic.claude.sdk.protocol.IncrementalStructuredOutputReader;
 import com.anthropic.claude.sdk.protocol.MessageParser;
 import com.anthropic.claude.sdk.transport.SubprocessTransport;
 import com.anthropic.claude.sdk.transport.Transport;
@@ -11,7 +13,7 @@ import com.anthropic.claude.sdk.types.messages.Message;
 import com.anthropic.claude.sdk.types.options.ClaudeAgentOptions;
 import com.anthropic.claude.sdk.types.mcp.McpSdkServerConfig;
 import com.anthropic.claude.sdk.types.permissions.ToolPermissionCallback;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.type.TypeReference;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -45,7 +47,7 @@ public final class ClaudeSDKClient implements AutoCloseable {
     public ClaudeSDKClient(ClaudeAgentOptions options, Transport transport) {
         this.originalOptions = Objects.requireNonNull(options, "options");
         this.customTransport = transport;
-        this.parser = new MessageParser();
+        this.parser = new MessageParser(options.getOutputType());
         this.connected = new AtomicBoolean(false);
     }
 
@@ -73,7 +75,8 @@ public final class ClaudeSDKClient implements AutoCloseable {
                             parser,
                             originalOptions.getCanUseTool(),
                             originalOptions.resolvedHooks(),
-                            sdkServers
+                            sdkServers,
+                            SessionMirror.forOptions(originalOptions)
                     );
                     query.start();
                     return query.initialize();
@@ -100,17 +103,7 @@ public final class ClaudeSDKClient implements AutoCloseable {
      */
     public CompletableFuture<Void> query(String prompt, String sessionId) {
         ensureConnected();
-        Map<String, Object> data = new HashMap<>();
-        data.put("type", "user");
-
-        Map<String, Object> message = new HashMap<>();
-        message.put("role", "user");
-        message.put("content", prompt);
-
-        data.put("message", message);
-        data.put("parent_tool_use_id", null);
-        data.put("session_id", sessionId);
-        return query.sendMessage(data);
+        return query.sendUserMessage(prompt, sessionId);
     }
 
     /**
@@ -158,6 +151,44 @@ public final class ClaudeSDKClient implements AutoCloseable {
         return query.streamMessages();
     }
 
+    /**
+     * Consume responses until the result arrives and return its structured output bound to {@code type}.
+     * Pair with {@link ClaudeAgentOptions.Builder#outputType(Class)} so the output is bound while parsing.
+     */
+    public <T> T receiveStructuredOutput(Class<T> type) {
+        ensureConnected();
+        return query.awaitStructuredOutput(type);
+    }
+
+    /**
+     * Consume responses until the result arrives and return its structured output bound to {@code type}.
+     */
+    public <T> T receiveStructuredOutput(TypeReference<T> type) {
+        ensureConnected();
+        return query.awaitStructuredOutput(type.getType());
+    }
+
+    /**
+     * Stream structured output items through the given reader as soon as each one is complete.
+     * Enable {@code includePartialMessages} to receive items while the output is still being generated.
+     */
+    public <T> Stream<T> receiveStructuredOutput(IncrementalStructuredOutputReader<T> reader) {
+        ensureConnected();
+        return query.streamStructuredOutput(reader);
+    }
+
+    /**
+     * Write the messages received so far to the configured session store without waiting for
+     * the mirror's batching delay. Mirroring runs in the background, so await this when a turn
+     * must be durable, e.g. after its result message.
+     *
+     * @return a future that completes once those messages are stored
+     */
+    public CompletableFuture<Void> flushSessionStore() {
+        ensureConnected();
+        return query.flushSessionStore();
+    }
+
     /**
      * Get the internal Query object for access to control methods
      * (e.g. setModel, mcpServerStatus, supportedCommands, etc.).
@@ -45,10 +45,11 @@ public final class QueryRunner {
 
         StreamingQuery streamingQuery = new StreamingQuery(
                 transport,
-                new MessageParser(),
+                new MessageParser(safeOptions.getOutputType()),
                 safeOptions.getCanUseTool(),
                 safeOptions.resolvedHooks(),
-                sdkServers
+                sdkServers,
+                SessionMirror.forOptions(safeOptions)
         );
 
         streamingQuery.start();
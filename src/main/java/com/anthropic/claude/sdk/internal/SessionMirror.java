@@ -0,0 +1,350 @@
+package com.anthropic.claude.sdk.internal;
+
+import com.anthropic.claude.sdk.session.SessionKey;
+import com.anthropic.claude.sdk.session.SessionStore;
+import com.anthropic.claude.sdk.session.SessionStoreEntry;
+import com.anthropic.claude.sdk.types.options.ClaudeAgentOptions;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind mirror of CLI messages into a {@link SessionStore}.
+ * <p>
+ * The reader thread only enqueues the parsed JSON line. A background thread converts entries,
+ * groups consecutive entries for the same {@link SessionKey} and hands each group to a single
+ * {@link SessionStore#append} call, lingering briefly so bursts of stream events share an append.
+ * The queue is bounded: when the store falls behind, the reader thread blocks rather than
+ * buffering without limit.
+ * <p>
+ * Entries are keyed by the {@code session_id} carried on each message; messages that arrive
+ * before any session id is known are held until one is, up to the queue's capacity. Messages
+ * beyond that are dropped and counted in {@link #droppedCount()}.
+ */
+public final class SessionMirror implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionMirror.class);
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<Map<String, Object>>() {
+    };
+
+    public static final int DEFAULT_CAPACITY = 10_000;
+    public static final int DEFAULT_MAX_BATCH_SIZE = 512;
+    public static final long DEFAULT_LINGER_MILLIS = 20;
+    private static final long FLUSH_TIMEOUT_SECONDS = 5;
+
+    private final SessionStore store;
+    private final String projectKey;
+    private final int capacity;
+    private final int maxBatchSize;
+    private final long lingerNanos;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final BlockingQueue<Item> queue;
+    private final Thread flusher;
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder mirrored = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder appendCalls = new LongAdder();
+    private volatile long inFlightSince;
+    private volatile long lastLagNanos;
+    private volatile long maxLagNanos;
+
+    // Flusher thread only
+    private String sessionId;
+    private final List<Item> unkeyed = new ArrayList<>();
+
+    public SessionMirror(SessionStore store, String projectKey) {
+        this(store, projectKey, DEFAULT_CAPACITY, DEFAULT_MAX_BATCH_SIZE, DEFAULT_LINGER_MILLIS);
+    }
+
+    public SessionMirror(SessionStore store, String projectKey, int capacity, int maxBatchSize, long lingerMillis) {
+        this.store = store;
+        this.projectKey = projectKey;
+        this.capacity = capacity;
+        this.maxBatchSize = maxBatchSize;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+        this.queue = new LinkedBlockingQueue<>(capacity);
+        this.flusher = new Thread(this::flushLoop, "session-mirror");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Create a mirror for the options' session store, or {@code null} when none is configured.
+     */
+    public static SessionMirror forOptions(ClaudeAgentOptions options) {
+        if (options == null || options.getSessionStore() == null) {
+            return null;
+        }
+        return new SessionMirror(options.getSessionStore(), projectKeyFor(options.getCwd()));
+    }
+
+    /**
+     * Project key for a working directory, using the CLI's convention of replacing every
+     * non-alphanumeric character of the absolute path with {@code -}.
+     */
+    public static String projectKeyFor(Path cwd) {
+        if (cwd == null) {
+            return "default";
+        }
+        return cwd.toAbsolutePath().normalize().toString().replaceAll("[^A-Za-z0-9]", "-");
+    }
+
+    public String getProjectKey() {
+        return projectKey;
+    }
+
+    /**
+     * Enqueue one message line. Blocks only while the queue is full.
+     */
+    public void mirror(JsonNode line) {
+        if (closed.get()) {
+            return;
+        }
+        JsonNode sessionNode = line.get("session_id");
+        String id = sessionNode != null && sessionNode.isTextual() ? sessionNode.asText() : null;
+        try {
+            queue.put(new Item(line, id, null));
+            enqueued.increment();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Append everything enqueued so far without waiting for the linger interval.
+     *
+     * @return a future that completes once those entries have been appended
+     */
+    public CompletableFuture<Void> flush() {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        if (closed.get() && !flusher.isAlive()) {
+            done.complete(null);
+            return done;
+        }
+        try {
+            queue.put(new Item(null, null, done));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            done.completeExceptionally(e);
+        }
+        return done;
+    }
+
+    /**
+     * Flush and wait (a bounded time) until everything enqueued so far has been appended.
+     * Never call this on the CLI reader thread; use {@link #flush()} there.
+     */
+    public void awaitFlush() {
+        try {
+            flush().get(FLUSH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.warn("Session mirror did not flush in time ({} entries pending)", pendingCount(), e);
+        }
+    }
+
+    /**
+     * Number of entries appended to the store.
+     */
+    public long mirroredCount() {
+        return mirrored.sum();
+    }
+
+    /**
+     * Number of entries whose append failed and were dropped.
+     */
+    public long failedCount() {
+        return failed.sum();
+    }
+
+    /**
+     * Number of entries dropped because too many arrived before any session id was known.
+     */
+    public long droppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Number of entries enqueued but not yet appended.
+     */
+    public long pendingCount() {
+        return Math.max(0, enqueued.sum() - mirrored.sum() - failed.sum() - dropped.sum());
+    }
+
+    /**
+     * Number of {@link SessionStore#append} calls made.
+     */
+    public long appendCount() {
+        return appendCalls.sum();
+    }
+
+    /**
+     * Age of the oldest entry not yet appended, or 0 when the mirror is caught up.
+     */
+    public long currentLagMillis() {
+        long oldest = inFlightSince;
+        if (oldest == 0) {
+            Item head = queue.peek();
+            oldest = head != null ? head.enqueuedAt : 0;
+        }
+        return oldest == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - oldest);
+    }
+
+    /**
+     * Enqueue-to-append latency of the oldest entry in the most recent append.
+     */
+    public long lastLagMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(lastLagNanos);
+    }
+
+    /**
+     * Largest enqueue-to-append latency observed.
+     */
+    public long maxLagMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxLagNanos);
+    }
+
+    /**
+     * Flush pending entries (waiting a bounded time) and stop the mirror thread.
+     * The store itself is not closed.
+     */
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        awaitFlush();
+        flusher.interrupt();
+    }
+
+    private void flushLoop() {
+        List<Item> batch = new ArrayList<>(maxBatchSize);
+        while (true) {
+            try {
+                batch.add(queue.take());
+                queue.drainTo(batch, maxBatchSize - batch.size());
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < maxBatchSize && !hasFlushMarker(batch)) {
+                    long remaining = deadline - System.nanoTime();
+                    Item next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                }
+            } catch (InterruptedException e) {
+                queue.drainTo(batch);
+                process(batch);
+                return;
+            }
+            process(batch);
+            batch.clear();
+        }
+    }
+
+    private static boolean hasFlushMarker(List<Item> batch) {
+        return batch.get(batch.size() - 1).flushed != null;
+    }
+
+    private void process(List<Item> batch) {
+        List<Item> run = new ArrayList<>();
+        String runSession = null;
+        for (Item item : batch) {
+            if (item.flushed != null) {
+                append(runSession, run);
+                runSession = null;
+                item.flushed.complete(null);
+                continue;
+            }
+            if (item.sessionId != null && !item.sessionId.equals(sessionId)) {
+                append(runSession, run);
+                runSession = null;
+                sessionId = item.sessionId;
+                if (!unkeyed.isEmpty()) {
+                    run.addAll(unkeyed);
+                    unkeyed.clear();
+                }
+            }
+            if (sessionId == null) {
+                if (unkeyed.size() < capacity) {
+                    unkeyed.add(item);
+                } else {
+                    if (dropped.sum() == 0) {
+                        logger.warn("No session id after {} messages; dropping further messages until one arrives",
+                                capacity);
+                    }
+                    dropped.increment();
+                }
+                continue;
+            }
+            runSession = sessionId;
+            run.add(item);
+        }
+        append(runSession, run);
+    }
+
+    private void append(String session, List<Item> run) {
+        if (run.isEmpty()) {
+            return;
+        }
+        long oldest = run.get(0).enqueuedAt;
+        inFlightSince = oldest;
+        List<SessionStoreEntry> entries = new ArrayList<>(run.size());
+        for (Item item : run) {
+            entries.add(toEntry(item.line));
+        }
+        try {
+            appendCalls.increment();
+            store.append(new SessionKey(projectKey, session, null), entries).join();
+            mirrored.add(entries.size());
+        } catch (RuntimeException e) {
+            failed.add(entries.size());
+            logger.warn("Failed to mirror {} entries to session store", entries.size(), e);
+        } finally {
+            long lag = System.nanoTime() - oldest;
+            lastLagNanos = lag;
+            if (lag > maxLagNanos) {
+                maxLagNanos = lag;
+            }
+            inFlightSince = 0;
+            run.clear();
+        }
+    }
+
+    private SessionStoreEntry toEntry(JsonNode line) {
+        Map<String, Object> data = mapper.convertValue(line, MAP_TYPE);
+        Object type = data.get("type");
+        return new SessionStoreEntry(type != null ? type.toString() : "", data);
+    }
+
+    private static final class Item {
+        final JsonNode line;
+        final String sessionId;
+        final CompletableFuture<Void> flushed;
+        final long enqueuedAt = System.nanoTime();
+
+        Item(JsonNode line, String sessionId, CompletableFuture<Void> flushed) {
+            this.line = line;
+            this.sessionId = sessionId;
+            this.flushed = flushed;
+        }
+    }
+}
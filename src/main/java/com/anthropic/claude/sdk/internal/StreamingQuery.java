@@ -1,9 +1,12 @@
 package com.anthropic.claude.sdk.internal;
 
 import com.anthropic.claude.sdk.exceptions.CLIConnectionException;
+import com.anthropic.claude.sdk.exceptions.ClaudeSdkException;
 import com.anthropic.claude.sdk.exceptions.MessageParseException;
 import com.anthropic.claude.sdk.mcp.SdkMcpServer;
+import com.anthropic.claude.sdk.protocol.IncrementalStructuredOutputReader;
 import com.anthropic.claude.sdk.protocol.MessageParser;
+import com.anthropic.claude.sdk.protocol.StructuredOutputReaders;
 import com.anthropic.claude.sdk.transport.Transport;
 import com.anthropic.claude.sdk.types.hooks.HookCallback;
 import com.anthropic.claude.sdk.types.hooks.HookCallbackMatcher;
@@ -11,12 +14,15 @@ import com.anthropic.claude.sdk.types.hooks.HookContext;
 import com.anthropic.claude.sdk.types.hooks.HookInput;
 import com.anthropic.claude.sdk.types.hooks.HookOutput;
 import com.anthropic.claude.sdk.types.messages.Message;
+import com.anthropic.claude.sdk.types.messages.ResultError;
+import com.anthropic.claude.sdk.types.messages.ResultMessage;
+import com.anthropic.claude.sdk.types.messages.ResultSuccess;
 import com.anthropic.claude.sdk.types.permissions.PermissionContext;
 import com.anthropic.claude.sdk.types.permissions.PermissionResult;
 import com.anthropic.claude.sdk.types.permissions.PermissionUpdate;
 import com.anthropic.claude.sdk.types.permissions.ToolPermissionCallback;
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.JsonSerializable;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -24,8 +30,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -55,6 +64,7 @@ import java.util.stream.StreamSupport;
 public final class StreamingQuery implements AutoCloseable {
 
     private static final Logger logger = LoggerFactory.getLogger(StreamingQuery.class);
+    private static final Map<String, Object> NOTIFICATION_ACK = Map.of("jsonrpc", "2.0", "result", Map.of());
     private final Transport transport;
     private final MessageParser parser;
     private final ToolPermissionCallback canUseTool;
@@ -68,6 +78,8 @@ public final class StreamingQuery implements AutoCloseable {
     private final AtomicInteger nextCallbackId;
     private final AtomicInteger nextRequestId;
     private final Map<String, SdkMcpServer> sdkMcpServers;
+    private final List<SdkMcpServer.Attachment> sdkMcpAttachments = new ArrayList<>();
+    private final SessionMirror sessionMirror;
 
     public StreamingQuery(
             Transport transport,
@@ -76,6 +88,21 @@ public final class StreamingQuery implements AutoCloseable {
             Map<String, List<HookCallbackMatcher>> hooks,
             Map<String, SdkMcpServer> sdkMcpServers
     ) {
+        this(transport, parser, canUseTool, hooks, sdkMcpServers, null);
+    }
+
+    /**
+     * @param sessionMirror mirror that receives every message line, or {@code null} to disable mirroring
+     */
+    public StreamingQuery(
+            Transport transport,
+            MessageParser parser,
+            ToolPermissionCallback canUseTool,
+            Map<String, List<HookCallbackMatcher>> hooks,
+            Map<String, SdkMcpServer> sdkMcpServers,
+            SessionMirror sessionMirror
+    ) {
+        this.sessionMirror = sessionMirror;
         this.transport = transport;
         this.parser = parser;
         this.canUseTool = canUseTool;
@@ -97,6 +124,11 @@ public final class StreamingQuery implements AutoCloseable {
     public void start() {
         if (reading.compareAndSet(false, true)) {
             readerExecutor.submit(this::readLoop);
+            for (Map.Entry<String, SdkMcpServer> server : sdkMcpServers.entrySet()) {
+                String serverName = server.getKey();
+                sdkMcpAttachments.add(server.getValue().attach(
+                        notification -> sendSdkMcpNotification(serverName, notification)));
+            }
         }
     }
 
@@ -119,14 +151,24 @@ public final class StreamingQuery implements AutoCloseable {
      * Send a user message (already structured as JSON) to the CLI.
      */
     public CompletableFuture<Void> sendMessage(Map<String, Object> message) {
-        try {
-            String payload = mapper.writeValueAsString(message);
-            return transport.write(payload);
-        } catch (JsonProcessingException e) {
-            CompletableFuture<Void> failed = new CompletableFuture<>();
-            failed.completeExceptionally(e);
-            return failed;
-        }
+        return transport.writeJson(generator -> generator.writeObject(message));
+    }
+
+    /**
+     * Send a plain-text user prompt, streaming the envelope straight to the transport.
+     */
+    public CompletableFuture<Void> sendUserMessage(String prompt, String sessionId) {
+        return transport.writeJson(generator -> {
+            generator.writeStartObject();
+            generator.writeStringField("type", "user");
+            generator.writeObjectFieldStart("message");
+            generator.writeStringField("role", "user");
+            generator.writeStringField("content", prompt);
+            generator.writeEndObject();
+            generator.writeNullField("parent_tool_use_id");
+            generator.writeStringField("session_id", sessionId);
+            generator.writeEndObject();
+        });
     }
 
     /**
@@ -179,6 +221,63 @@ public final class StreamingQuery implements AutoCloseable {
         return StreamSupport.stream(spliterator, false);
     }
 
+    /**
+     * Consume messages until the result arrives and bind its {@code structured_output}
+     * to the given type. Output already bound by the parser is returned as-is.
+     */
+    public <T> T awaitStructuredOutput(Type type) {
+        ResultMessage result = streamMessages()
+                .filter(message -> message instanceof ResultMessage)
+                .map(message -> (ResultMessage) message)
+                .findFirst()
+                .orElseThrow(() -> new CLIConnectionException("Connection closed before result"));
+        if (result instanceof ResultError) {
+            ResultError error = (ResultError) result;
+            throw new ClaudeSdkException("Query failed (" + error.subtype() + "): " + error.errors());
+        }
+        Object structuredOutput = ((ResultSuccess) result).structuredOutput();
+        try {
+            return StructuredOutputReaders.convert(structuredOutput, type);
+        } catch (IOException e) {
+            throw new MessageParseException("Failed to bind structured output to " + type.getTypeName(),
+                    String.valueOf(structuredOutput), e);
+        }
+    }
+
+    /**
+     * Stream structured output items as they are completed, ending after the result message.
+     * Messages consumed here are not delivered to {@link #streamMessages()}.
+     */
+    public <T> Stream<T> streamStructuredOutput(IncrementalStructuredOutputReader<T> reader) {
+        Iterator<Message> messages = streamMessages().iterator();
+        Spliterator<T> spliterator = new Spliterators.AbstractSpliterator<T>(
+                Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL
+        ) {
+            private final Deque<T> pending = new ArrayDeque<>();
+            private boolean finished;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                while (pending.isEmpty()) {
+                    if (finished || !messages.hasNext()) {
+                        return false;
+                    }
+                    Message message = messages.next();
+                    pending.addAll(reader.feed(message));
+                    if (message instanceof ResultError) {
+                        ResultError error = (ResultError) message;
+                        throw new ClaudeSdkException("Query failed (" + error.subtype() + "): " + error.errors());
+                    }
+                    finished = message instanceof ResultMessage;
+                }
+                action.accept(pending.poll());
+                return true;
+            }
+        };
+        return StreamSupport.stream(spliterator, false);
+    }
+
     /**
      * Send interrupt control request.
      */
@@ -202,6 +301,9 @@ public final class StreamingQuery implements AutoCloseable {
         } catch (Exception e) {
             logger.error("Fatal error while reading CLI output", e);
         } finally {
+            if (sessionMirror != null) {
+                sessionMirror.flush();
+            }
             reading.set(false);
             pendingControlResponses.values().forEach(future ->
                     future.completeExceptionally(
@@ -237,9 +339,11 @@ public final class StreamingQuery implements AutoCloseable {
                 logger.debug("Received control cancel request: {}", line);
                 break;
             default:
+                if (sessionMirror != null) {
+                    sessionMirror.mirror(root);
+                }
                 try {
-                    Message message = parser.parse(line);
-                    messageQueue.offer(message);
+                    messageQueue.offer(parser.parse(root));
                 } catch (MessageParseException e) {
                     logger.warn("Failed to parse message: {}", line, e);
                 }
@@ -247,6 +351,23 @@ public final class StreamingQuery implements AutoCloseable {
         }
     }
 
+    /**
+     * Append everything mirrored so far to the session store without waiting for the linger
+     * interval.
+     *
+     * @return a future that completes once those entries are stored (at once without a store)
+     */
+    public CompletableFuture<Void> flushSessionStore() {
+        return sessionMirror != null ? sessionMirror.flush() : CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Session store mirror for this query, or {@code null} when no store is configured.
+     */
+    public SessionMirror getSessionMirror() {
+        return sessionMirror;
+    }
+
     private void handleControlResponse(JsonNode node) {
         JsonNode responseNode = node.get("response");
         if (responseNode == null) {
@@ -298,8 +419,15 @@ public final class StreamingQuery implements AutoCloseable {
                     handleHookCallback(requestId, requestNode);
                     break;
                 case "mcp_message":
-                    Map<String, Object> mcpResponse = handleSdkMcpMessage(requestNode);
-                    sendControlSuccess(requestId, Collections.singletonMap("mcp_response", mcpResponse));
+                    // Respond when the tool completes instead of blocking the reader thread
+                    handleSdkMcpMessage(requestNode).whenComplete((mcpResponse, error) -> {
+                        if (error != null) {
+                            logger.error("Failed to handle MCP message", error);
+                            sendControlError(requestId, error.getMessage());
+                        } else {
+                            sendControlSuccess(requestId, Collections.singletonMap("mcp_response", mcpResponse));
+                        }
+                    });
                     break;
                 default:
                     sendControlError(requestId, "Unsupported control request: " + subtype);
@@ -344,9 +472,10 @@ public final class StreamingQuery implements AutoCloseable {
 
             List<PermissionUpdate> updates = allow.updatedPermissions();
             if (updates != null && !updates.isEmpty()) {
-                List<Map<String, Object>> updatePayload = new ArrayList<>();
+                List<Object> updatePayload = new ArrayList<>(updates.size());
                 for (PermissionUpdate update : updates) {
-                    updatePayload.add(update.toMap());
+                    // Built-in updates stream themselves; other implementations go through toMap()
+                    updatePayload.add(update instanceof JsonSerializable ? update : update.toMap());
                 }
                 response.put("updatedPermissions", updatePayload);
             }
@@ -451,15 +580,17 @@ public final class StreamingQuery implements AutoCloseable {
         CompletableFuture<JsonNode> future = new CompletableFuture<>();
         pendingControlResponses.put(requestId, future);
 
-        ObjectNode envelope = mapper.createObjectNode();
-        envelope.put("type", "control_request");
-        envelope.put("request_id", requestId);
-        envelope.set("request", request);
-
         try {
-            transport.write(mapper.writeValueAsString(envelope)).join();
-        } catch (JsonProcessingException e) {
-            future.completeExceptionally(e);
+            transport.writeJson(generator -> {
+                generator.writeStartObject();
+                generator.writeStringField("type", "control_request");
+                generator.writeStringField("request_id", requestId);
+                generator.writeFieldName("request");
+                generator.writeTree(request);
+                generator.writeEndObject();
+            }).join();
+        } catch (CompletionException e) {
+            future.completeExceptionally(e.getCause());
             pendingControlResponses.remove(requestId);
             return future;
         }
@@ -468,27 +599,30 @@ public final class StreamingQuery implements AutoCloseable {
     }
 
     private void sendControlSuccess(String requestId, Map<String, Object> payload) {
-        ObjectNode response = mapper.createObjectNode();
-        response.put("type", "control_response");
-        ObjectNode inner = mapper.createObjectNode();
-        inner.put("subtype", "success");
-        inner.put("request_id", requestId);
-        inner.set("response", mapper.valueToTree(payload));
-        response.set("response", inner);
-
-        transport.write(response.toString()).join();
+        transport.writeJson(generator -> {
+            generator.writeStartObject();
+            generator.writeStringField("type", "control_response");
+            generator.writeObjectFieldStart("response");
+            generator.writeStringField("subtype", "success");
+            generator.writeStringField("request_id", requestId);
+            generator.writeFieldName("response");
+            generator.writeObject(payload);
+            generator.writeEndObject();
+            generator.writeEndObject();
+        }).join();
     }
 
     private void sendControlError(String requestId, String error) {
-        ObjectNode response = mapper.createObjectNode();
-        response.put("type", "control_response");
-        ObjectNode inner = mapper.createObjectNode();
-        inner.put("subtype", "error");
-        inner.put("request_id", requestId);
-        inner.put("error", Objects.requireNonNullElse(error, "Unknown error"));
-        response.set("response", inner);
-
-        transport.write(response.toString()).join();
+        transport.writeJson(generator -> {
+            generator.writeStartObject();
+            generator.writeStringField("type", "control_response");
+            generator.writeObjectFieldStart("response");
+            generator.writeStringField("subtype", "error");
+            generator.writeStringField("request_id", requestId);
+            generator.writeStringField("error", Objects.requireNonNullElse(error, "Unknown error"));
+            generator.writeEndObject();
+            generator.writeEndObject();
+        }).join();
     }
 
     private Map<String, Object> normalizeHookOutput(Map<String, Object> hookOutput) {
@@ -509,23 +643,50 @@ public final class StreamingQuery implements AutoCloseable {
         return normalized;
     }
 
-    private Map<String, Object> handleSdkMcpMessage(JsonNode requestNode) {
+    private CompletableFuture<Object> handleSdkMcpMessage(JsonNode requestNode) {
         String serverName = Optional.ofNullable(requestNode.get("server_name"))
                 .map(JsonNode::asText)
                 .orElse(null);
         JsonNode messageNode = requestNode.get("message");
 
         if (serverName == null || messageNode == null) {
-            return buildMcpErrorResponse(null, -32602, "Invalid MCP request");
+            return CompletableFuture.completedFuture(buildMcpErrorResponse(null, -32602, "Invalid MCP request"));
         }
 
         if (!sdkMcpServers.containsKey(serverName)) {
             Object id = messageNode.has("id") ? mapper.convertValue(messageNode.get("id"), Object.class) : null;
-            return buildMcpErrorResponse(id, -32601, "Server '" + serverName + "' not found");
+            return CompletableFuture.completedFuture(
+                    buildMcpErrorResponse(id, -32601, "Server '" + serverName + "' not found"));
         }
 
         SdkMcpServer server = sdkMcpServers.get(serverName);
-        return server.handleMessage(messageNode);
+        return server.handleJsonRpc(messageNode, notification -> sendSdkMcpNotification(serverName, notification))
+                // The CLI expects an mcp_response even for notifications
+                .thenApply(response -> response != null ? response : NOTIFICATION_ACK);
+    }
+
+    /**
+     * Forward a server-initiated MCP message to the CLI. The CLI's acknowledgement is not awaited;
+     * its control response matches no pending request and is dropped.
+     */
+    private void sendSdkMcpNotification(String serverName, Map<String, Object> notification) {
+        String requestId = "req_" + nextRequestId.getAndIncrement() + "_" + UUID.randomUUID();
+        transport.writeJson(generator -> {
+            generator.writeStartObject();
+            generator.writeStringField("type", "control_request");
+            generator.writeStringField("request_id", requestId);
+            generator.writeObjectFieldStart("request");
+            generator.writeStringField("subtype", "mcp_message");
+            generator.writeStringField("server_name", serverName);
+            generator.writeFieldName("message");
+            generator.writeObject(notification);
+            generator.writeEndObject();
+            generator.writeEndObject();
+        }).whenComplete((ignored, error) -> {
+            if (error != null) {
+                logger.debug("Failed to send MCP notification to CLI", error);
+            }
+        });
     }
 
     private Map<String, Object> buildMcpErrorResponse(Object id, int code, String message) {
@@ -538,9 +699,13 @@ public final class StreamingQuery implements AutoCloseable {
 
     @Override
     public void close() {
+        sdkMcpAttachments.forEach(SdkMcpServer.Attachment::close);
         reading.set(false);
         readerExecutor.shutdownNow();
         transport.close();
+        if (sessionMirror != null) {
+            sessionMirror.close();
+        }
         messageQueue.clear();
     }
 }
@@ -0,0 +1,596 @@
+package com.anthropic.claude.sdk.mcp;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.DecimalNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Validator for tool arguments, compiled once from a tool's input schema into a tree of checks.
+ * <p>
+ * Supports the JSON Schema subset tool schemas use in practice: {@code type} (a name or a list),
+ * {@code enum}, {@code const}, {@code properties}, {@code required}, {@code additionalProperties},
+ * {@code items}, {@code minimum}/{@code maximum} and their exclusive forms,
+ * {@code minLength}/{@code maxLength}, {@code pattern}, {@code minItems}/{@code maxItems},
+ * {@code allOf} and {@code anyOf}. Other keywords are ignored, as are supported keywords whose
+ * value cannot be interpreted (an unknown type name, a non-numeric bound, an invalid pattern),
+ * which are logged at debug level. As in JSON Schema, a keyword only constrains values of the
+ * type it applies to. Checking a valid value allocates little: an iterator per object, and a
+ * normalised copy of each value compared against {@code enum} or {@code const}.
+ */
+final class InputValidator {
+
+    private static final Logger logger = LoggerFactory.getLogger(InputValidator.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final int NULL = 1;
+    private static final int BOOLEAN = 1 << 1;
+    private static final int INTEGER = 1 << 2;
+    private static final int NUMBER = 1 << 3;
+    private static final int STRING = 1 << 4;
+    private static final int ARRAY = 1 << 5;
+    private static final int OBJECT = 1 << 6;
+
+    private final Check root;
+
+    private InputValidator(Check root) {
+        this.root = root;
+    }
+
+    /**
+     * Compile a schema. Never fails; keywords that cannot be interpreted constrain nothing.
+     */
+    static InputValidator compile(Map<String, Object> schema) {
+        return new InputValidator(compileSchema(schema));
+    }
+
+    /**
+     * Validate a value.
+     *
+     * @return {@code null} if the value is valid, otherwise a message naming the first violation
+     */
+    String validate(JsonNode value) {
+        Violation violation = root.check(value);
+        if (violation == null) {
+            return null;
+        }
+        return violation.path.isEmpty() ? violation.message : violation.path + ": " + violation.message;
+    }
+
+    private static Check compileSchema(Object schema) {
+        if (schema instanceof Boolean) {
+            return (Boolean) schema ? ANY : NONE;
+        }
+        if (!(schema instanceof Map)) {
+            return ANY;
+        }
+        Map<?, ?> definition = (Map<?, ?>) schema;
+        List<Check> checks = new ArrayList<>();
+
+        Object type = definition.get("type");
+        if (type != null) {
+            int mask = typeMask(type);
+            if (mask != 0) {
+                checks.add(new TypeCheck(mask));
+            }
+        }
+        if (definition.containsKey("const")) {
+            checks.add(new EnumCheck(List.of(MAPPER.valueToTree(definition.get("const")))));
+        }
+        Object values = definition.get("enum");
+        if (values != null) {
+            List<JsonNode> allowed = new ArrayList<>();
+            for (Object value : asList(values, "enum")) {
+                allowed.add(MAPPER.valueToTree(value));
+            }
+            if (values instanceof Collection || values instanceof Object[]) {
+                checks.add(new EnumCheck(allowed));
+            }
+        }
+
+        Object properties = definition.get("properties");
+        Object required = definition.get("required");
+        Object additional = definition.get("additionalProperties");
+        if (properties != null || required != null || additional != null) {
+            Map<String, Check> propertyChecks = new HashMap<>();
+            if (properties instanceof Map) {
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) properties).entrySet()) {
+                    propertyChecks.put(String.valueOf(entry.getKey()), compileSchema(entry.getValue()));
+                }
+            }
+            List<String> requiredNames = new ArrayList<>();
+            if (required != null) {
+                for (Object name : asList(required, "required")) {
+                    requiredNames.add(String.valueOf(name));
+                }
+            }
+            checks.add(new ObjectCheck(propertyChecks, requiredNames.toArray(new String[0]),
+                    additional == null ? ANY : compileSchema(additional)));
+        }
+
+        Object items = definition.get("items");
+        if (items instanceof Map || items instanceof Boolean) {
+            checks.add(new ItemsCheck(compileSchema(items)));
+        }
+
+        Double minimum = number(definition, "minimum");
+        Double maximum = number(definition, "maximum");
+        Double exclusiveMinimum = number(definition, "exclusiveMinimum");
+        Double exclusiveMaximum = number(definition, "exclusiveMaximum");
+        if (minimum != null || maximum != null || exclusiveMinimum != null || exclusiveMaximum != null) {
+            checks.add(new RangeCheck(minimum, maximum, exclusiveMinimum, exclusiveMaximum));
+        }
+
+        Double minLength = number(definition, "minLength");
+        Double maxLength = number(definition, "maxLength");
+        Object pattern = definition.get("pattern");
+        if (minLength != null || maxLength != null || pattern != null) {
+            checks.add(new StringCheck(minLength != null ? minLength.intValue() : 0,
+                    maxLength != null ? maxLength.intValue() : Integer.MAX_VALUE,
+                    pattern != null ? pattern(pattern.toString()) : null));
+        }
+
+        Double minItems = number(definition, "minItems");
+        Double maxItems = number(definition, "maxItems");
+        if (minItems != null || maxItems != null) {
+            checks.add(new SizeCheck(minItems != null ? minItems.intValue() : 0,
+                    maxItems != null ? maxItems.intValue() : Integer.MAX_VALUE));
+        }
+
+        Object allOf = definition.get("allOf");
+        if (allOf != null) {
+            for (Object member : asList(allOf, "allOf")) {
+                checks.add(compileSchema(member));
+            }
+        }
+        Object anyOf = definition.get("anyOf");
+        if (anyOf != null) {
+            List<Check> alternatives = new ArrayList<>();
+            for (Object member : asList(anyOf, "anyOf")) {
+                alternatives.add(compileSchema(member));
+            }
+            if (!alternatives.isEmpty()) {
+                checks.add(new AnyOfCheck(alternatives.toArray(new Check[0])));
+            }
+        }
+
+        checks.removeIf(check -> check == ANY);
+        if (checks.isEmpty()) {
+            return ANY;
+        }
+        return checks.size() == 1 ? checks.get(0) : new AllOfCheck(checks.toArray(new Check[0]));
+    }
+
+    private static int typeMask(Object type) {
+        if (!(type instanceof String)) {
+            // Any unknown name (or an empty list) drops the whole keyword rather than narrowing it
+            int mask = 0;
+            for (Object name : asList(type, "type")) {
+                int bit = name instanceof String ? typeMask(name) : 0;
+                if (bit == 0) {
+                    return 0;
+                }
+                mask |= bit;
+            }
+            return mask;
+        }
+        switch ((String) type) {
+            case "null":
+                return NULL;
+            case "boolean":
+                return BOOLEAN;
+            case "integer":
+                return INTEGER;
+            case "number":
+                return NUMBER | INTEGER;
+            case "string":
+                return STRING;
+            case "array":
+                return ARRAY;
+            case "object":
+                return OBJECT;
+            default:
+                logger.debug("Ignoring unknown schema type '{}'", type);
+                return 0;
+        }
+    }
+
+    private static int typeOf(JsonNode value) {
+        if (value.isNull()) {
+            return NULL;
+        }
+        if (value.isBoolean()) {
+            return BOOLEAN;
+        }
+        if (value.isIntegralNumber()) {
+            return INTEGER;
+        }
+        if (value.isNumber()) {
+            double number = value.doubleValue();
+            return number == Math.rint(number) && !Double.isInfinite(number) ? INTEGER : NUMBER;
+        }
+        if (value.isTextual()) {
+            return STRING;
+        }
+        if (value.isArray()) {
+            return ARRAY;
+        }
+        return value.isObject() ? OBJECT : 0;
+    }
+
+    private static String typeName(JsonNode value) {
+        switch (typeOf(value)) {
+            case NULL:
+                return "null";
+            case BOOLEAN:
+                return "boolean";
+            case INTEGER:
+                return "integer";
+            case NUMBER:
+                return "number";
+            case STRING:
+                return "string";
+            case ARRAY:
+                return "array";
+            default:
+                return "object";
+        }
+    }
+
+    private static List<?> asList(Object value, String keyword) {
+        if (value instanceof Collection) {
+            return new ArrayList<>((Collection<?>) value);
+        }
+        if (value instanceof Object[]) {
+            return Arrays.asList((Object[]) value);
+        }
+        logger.debug("Ignoring schema keyword '{}': not an array", keyword);
+        return Collections.emptyList();
+    }
+
+    private static Double number(Map<?, ?> definition, String keyword) {
+        Object value = definition.get(keyword);
+        if (value == null) {
+            return null;
+        }
+        if (!(value instanceof Number)) {
+            logger.debug("Ignoring schema keyword '{}': not a number", keyword);
+            return null;
+        }
+        return ((Number) value).doubleValue();
+    }
+
+    private static Pattern pattern(String regex) {
+        try {
+            return Pattern.compile(regex);
+        } catch (PatternSyntaxException e) {
+            logger.debug("Ignoring schema pattern '{}': {}", regex, e.getDescription());
+            return null;
+        }
+    }
+
+    /**
+     * First violation found, with its JSON Pointer path built while unwinding.
+     */
+    private static final class Violation {
+        String path = "";
+        final String message;
+
+        Violation(String message) {
+            this.message = message;
+        }
+
+        Violation at(String segment) {
+            path = "/" + segment.replace("~", "~0").replace("/", "~1") + path;
+            return this;
+        }
+    }
+
+    private abstract static class Check {
+        /**
+         * @return {@code null} if the value passes
+         */
+        abstract Violation check(JsonNode value);
+    }
+
+    private static final Check ANY = new Check() {
+        @Override
+        Violation check(JsonNode value) {
+            return null;
+        }
+    };
+
+    private static final Check NONE = new Check() {
+        @Override
+        Violation check(JsonNode value) {
+            return new Violation("no value is allowed here");
+        }
+    };
+
+    private static final class AllOfCheck extends Check {
+        private final Check[] checks;
+
+        AllOfCheck(Check[] checks) {
+            this.checks = checks;
+        }
+
+        @Override
+        Violation check(JsonNode value) {
+            for (Check check : checks) {
+                Violation violation = check.check(value);
+                if (violation != null) {
+                    return violation;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final class AnyOfCheck extends Check {
+        private final Check[] alternatives;
+
+        AnyOfCheck(Check[] alternatives) {
+            this.alternatives = alternatives;
+        }
+
+        @Override
+        Violation check(JsonNode value) {
+            for (Check alternative : alternatives) {
+                if (alternative.check(value) == null) {
+                    return null;
+                }
+            }
+            return new Violation("does not match any of the allowed schemas");
+        }
+    }
+
+    private static final class TypeCheck extends Check {
+        private final int mask;
+
+        TypeCheck(int mask) {
+            this.mask = mask;
+        }
+
+        @Override
+        Violation check(JsonNode value) {
+            if ((typeOf(value) & mask) != 0) {
+                return null;
+            }
+            List<String> expected = new ArrayList<>();
+            for (String name : new String[]{"null", "boolean", "integer", "number", "string", "array", "object"}) {
+                int bit = typeMask(name);
+                if ((mask & bit) == bit) {
+                    expected.add(name);
+                }
+            }
+            if (expected.contains("number")) {
+                expected.remove("integer");
+            }
+            return new Violation("expected " + String.join(" or ", expected) + ", got " + typeName(value));
+        }
+    }
+
+    /**
+     * Checks {@code enum} and {@code const}. Numbers compare by value, so {@code 5}, {@code 5.0}
+     * and a long {@code 5} are equal, as JSON Schema requires; {@link JsonNode#equals} would also
+     * compare the node class.
+     */
+    private static final class EnumCheck extends Check {
+        private final List<JsonNode> allowed;
+        private final Set<JsonNode> canonical = new HashSet<>();
+
+        EnumCheck(List<JsonNode> allowed) {
+            this.allowed = allowed;
+            for (JsonNode value : allowed) {
+                canonical.add(canonical(value));
+            }
+        }
+
+        @Override
+        Violation check(JsonNode value) {
+            return canonical.contains(canonical(value)) ? null : new Violation("must be one of " + allowed);
+        }
+
+        /**
+         * Copy of a value with every finite number replaced by a {@link DecimalNode} without
+         * trailing zeros. Values without numbers are returned as they are.
+         */
+        private static JsonNode canonical(JsonNode value) {
+            if (value.isNumber()) {
+                if ((value.isDouble() || value.isFloat()) && !Double.isFinite(value.doubleValue())) {
+                    return value;
+                }
+                return DecimalNode.valueOf(value.decimalValue().stripTrailingZeros());
+            }
+            if (value.isArray()) {
+                ArrayNode copy = JsonNodeFactory.instance.arrayNode(value.size());
+                for (JsonNode element : value) {
+                    copy.add(canonical(element));
+                }
+                return copy;
+            }
+            if (value.isObject()) {
+                ObjectNode copy = JsonNodeFactory.instance.objectNode();
+                Iterator<Map.Entry<String, JsonNode>> fields = value.fields();
+                while (fields.hasNext()) {
+                    Map.Entry<String, JsonNode> field = fields.next();
+                    copy.set(field.getKey(), canonical(field.getValue()));
+                }
+                return copy;
+            }
+            return value;
+        }
+    }
+
+    private static final class ObjectCheck extends Check {
+        private final Map<String, Check> properties;
+        private final String[] required;
+        private final Check additional;
+
+        ObjectCheck(Map<String, Check> properties, String[] required, Check additional) {
+            this.properties = properties;
+            this.required = required;
+            this.additional = additional;
+        }
+
+        @Override
+        Violation check(JsonNode value) {
+            if (!value.isObject()) {
+                return null;
+            }
+            for (String name : required) {
+                if (!value.has(name)) {
+                    return new Violation("missing required property '" + name + "'");
+                }
+            }
+            Iterator<Map.Entry<String, JsonNode>> fields = value.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                Check check = properties.get(field.getKey());
+                if (check == null) {
+                    check = additional;
+                }
+                Violation violation = check == NONE
+                        ? new Violation("unexpected property")
+                        : check.check(field.getValue());
+                if (violation != null) {
+                    return violation.at(field.getKey());
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final class ItemsCheck extends Check {
+        private final Check items;
+
+        ItemsCheck(Check items) {
+            this.items = items;
+        }
+
+        @Override
+        Violation check(JsonNode value) {
+            if (!value.isArray()) {
+                return null;
+            }
+            for (int i = 0; i < value.size(); i++) {
+                Violation violation = items.check(value.get(i));
+                if (violation != null) {
+                    return violation.at(Integer.toString(i));
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final class RangeCheck extends Check {
+        private final Double minimum;
+        private final Double maximum;
+        private final Double exclusiveMinimum;
+        private final Double exclusiveMaximum;
+
+        RangeCheck(Double minimum, Double maximum, Double exclusiveMinimum, Double exclusiveMaximum) {
+            this.minimum = minimum;
+            this.maximum = maximum;
+            this.exclusiveMinimum = exclusiveMinimum;
+            this.exclusiveMaximum = exclusiveMaximum;
+        }
+
+        @Override
+        Violation check(JsonNode value) {
+            if (!value.isNumber()) {
+                return null;
+            }
+            double number = value.doubleValue();
+            if (minimum != null && number < minimum) {
+                return new Violation("must be >= " + format(minimum));
+            }
+            if (maximum != null && number > maximum) {
+                return new Violation("must be <= " + format(maximum));
+            }
+            if (exclusiveMinimum != null && number <= exclusiveMinimum) {
+                return new Violation("must be > " + format(exclusiveMinimum));
+            }
+            if (exclusiveMaximum != null && number >= exclusiveMaximum) {
+                return new Violation("must be < " + format(exclusiveMaximum));
+            }
+            return null;
+        }
+
+        private static String format(double bound) {
+            return bound == Math.rint(bound) ? Long.toString((long) bound) : Double.toString(bound);
+        }
+    }
+
+    private static final class StringCheck extends Check {
+        private final int minLength;
+        private final int maxLength;
+        private final Pattern pattern;
+
+        StringCheck(int minLength, int maxLength, Pattern pattern) {
+            this.minLength = minLength;
+            this.maxLength = maxLength;
+            this.pattern = pattern;
+        }
+
+        @Override
+        Violation check(JsonNode value) {
+            if (!value.isTextual()) {
+                return null;
+            }
+            String text = value.textValue();
+            int length = text.codePointCount(0, text.length());
+            if (length < minLength) {
+                return new Violation("must be at least " + minLength + " characters");
+            }
+            if (length > maxLength) {
+                return new Violation("must be at most " + maxLength + " characters");
+            }
+            if (pattern != null && !pattern.matcher(text).find()) {
+                return new Violation("must match pattern " + pattern.pattern());
+            }
+            return null;
+        }
+    }
+
+    private static final class SizeCheck extends Check {
+        private final int minItems;
+        private final int maxItems;
+
+        SizeCheck(int minItems, int maxItems) {
+            this.minItems = minItems;
+            this.maxItems = maxItems;
+        }
+
+        @Override
+        Violation check(JsonNode value) {
+            if (!value.isArray()) {
+                return null;
+            }
+            if (value.size() < minItems) {
+                return new Violation("must have at least " + minItems + " items");
+            }
+            if (value.size() > maxItems) {
+                return new Violation("must have at most " + maxItems + " items");
+            }
+            return null;
+        }
+    }
+}
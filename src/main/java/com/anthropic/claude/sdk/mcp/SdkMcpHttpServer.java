@@ -0,0 +1,303 @@
+package com.anthropic.claude.sdk.mcp;
+
+import com.anthropic.claude.sdk.types.mcp.McpHttpServerConfig;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serves an {@link SdkMcpServer} as a standalone MCP server over HTTP, using the JDK's built-in
+ * {@link HttpServer}, so one JVM can host tools for many CLI processes.
+ * <p>
+ * Implements the request/response part of the streamable HTTP transport: each JSON-RPC message
+ * or batch is POSTed to the endpoint and answered with an {@code application/json} body, or
+ * {@code 202 Accepted} when it holds only notifications. Server-initiated streams ({@code GET})
+ * and SSE responses are not offered, so HTTP clients do not receive the server's notifications,
+ * including tool progress.
+ * Exchanges are completed asynchronously when the tool's future completes, so HTTP threads only
+ * parse requests and never wait on tools. The server binds to the loopback address by default
+ * and rejects browser requests from non-local origins.
+ *
+ * <pre>{@code
+ * SdkMcpHttpServer http = SdkMcpHttpServer.builder().server(server).port(8765).build().start();
+ * ClaudeAgentOptions options = ClaudeAgentOptions.builder()
+ *     .mcpServers(Map.of("tools", http.toConfig()))
+ *     .build();
+ * }</pre>
+ */
+public final class SdkMcpHttpServer implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SdkMcpHttpServer.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final String NODELAY_PROPERTY = "sun.net.httpserver.nodelay";
+
+    private final SdkMcpServer server;
+    private final String path;
+    private final HttpServer httpServer;
+    private final ExecutorService ownedExecutor;
+
+    private SdkMcpHttpServer(Builder builder) throws IOException {
+        this.server = Objects.requireNonNull(builder.server, "server");
+        this.path = builder.path;
+        if (builder.tcpNoDelay && System.getProperty(NODELAY_PROPERTY) == null) {
+            System.setProperty(NODELAY_PROPERTY, "true");
+        }
+        InetAddress host = builder.host != null ? InetAddress.getByName(builder.host) : InetAddress.getLoopbackAddress();
+        this.httpServer = HttpServer.create(new InetSocketAddress(host, builder.port), builder.backlog);
+        this.ownedExecutor = builder.executor == null ? newExecutor(builder.threads) : null;
+        httpServer.setExecutor(builder.executor != null ? builder.executor : ownedExecutor);
+        httpServer.createContext(path, this::handle);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Start accepting requests.
+     */
+    public SdkMcpHttpServer start() {
+        httpServer.start();
+        return this;
+    }
+
+    /**
+     * The bound address; with port 0 this carries the port chosen by the system.
+     */
+    public InetSocketAddress getAddress() {
+        return httpServer.getAddress();
+    }
+
+    /**
+     * The endpoint URL, e.g. {@code http://127.0.0.1:8765/mcp}.
+     */
+    public URI getUrl() {
+        InetSocketAddress address = getAddress();
+        String host = address.getAddress().getHostAddress();
+        if (address.getAddress() instanceof Inet6Address) {
+            host = "[" + host + "]";
+        }
+        return URI.create("http://" + host + ":" + address.getPort() + path);
+    }
+
+    /**
+     * CLI configuration that connects to this server.
+     */
+    public McpHttpServerConfig toConfig() {
+        return McpHttpServerConfig.builder().url(getUrl().toString()).build();
+    }
+
+    /**
+     * Stop the server, giving in-flight exchanges up to a second to finish.
+     */
+    @Override
+    public void close() {
+        httpServer.stop(1);
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "POST");
+                respond(exchange, 405, SdkMcpServer.errorResponse(null, -32000, "Method not allowed"));
+                return;
+            }
+            // Read the body first: the exchange cannot be answered while it is unread
+            JsonNode message;
+            IOException parseError = null;
+            try (InputStream body = exchange.getRequestBody()) {
+                byte[] bytes = body.readAllBytes();
+                message = null;
+                try {
+                    message = MAPPER.readTree(bytes);
+                } catch (IOException e) {
+                    parseError = e;
+                }
+            }
+            if (!isLocalOrigin(exchange.getRequestHeaders().getFirst("Origin"))) {
+                respond(exchange, 403, SdkMcpServer.errorResponse(null, -32000, "Origin not allowed"));
+                return;
+            }
+            if (parseError != null) {
+                respond(exchange, 400, SdkMcpStdioServer.parseError(parseError));
+                return;
+            }
+            server.handleJsonRpc(message, null).whenComplete((response, error) -> {
+                try {
+                    if (error != null) {
+                        logger.warn("SDK MCP request failed", error);
+                        respond(exchange, 500, SdkMcpServer.errorResponse(null, -32603, "Internal error"));
+                    } else if (response != null) {
+                        respond(exchange, 200, response);
+                    } else {
+                        // Notifications and client responses are accepted without a body
+                        respond(exchange, 202, null);
+                    }
+                } catch (IOException | UncheckedIOException e) {
+                    logger.warn("Failed to write SDK MCP response", e);
+                    exchange.close();
+                }
+            });
+        } catch (IOException | RuntimeException e) {
+            exchange.close();
+            throw e;
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, Object body) throws IOException {
+        if (body == null) {
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+            return;
+        }
+        byte[] bytes = MAPPER.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static boolean isLocalOrigin(String origin) {
+        if (origin == null) {
+            return true;
+        }
+        try {
+            String host = URI.create(origin).getHost();
+            return "localhost".equals(host) || "127.0.0.1".equals(host) || "[::1]".equals(host);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static ExecutorService newExecutor(int threads) {
+        return Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable task) {
+                Thread thread = new Thread(task, "sdk-mcp-http-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    public static final class Builder {
+        private SdkMcpServer server;
+        private String host;
+        private int port;
+        private String path = "/mcp";
+        private int backlog;
+        private ExecutorService executor;
+        private int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        private boolean tcpNoDelay;
+
+        private Builder() {
+        }
+
+        public Builder server(SdkMcpServer server) {
+            this.server = server;
+            return this;
+        }
+
+        /**
+         * Address to bind (default: the loopback address).
+         */
+        public Builder host(String host) {
+            this.host = host;
+            return this;
+        }
+
+        /**
+         * Port to bind (default 0: any free port, see {@link SdkMcpHttpServer#getAddress()}).
+         */
+        public Builder port(int port) {
+            this.port = port;
+            return this;
+        }
+
+        public Builder path(String path) {
+            this.path = path;
+            return this;
+        }
+
+        /**
+         * Maximum queued incoming connections (default 0: the system default).
+         */
+        public Builder backlog(int backlog) {
+            this.backlog = backlog;
+            return this;
+        }
+
+        /**
+         * Executor for HTTP exchanges; it is not shut down on {@link #close()}. By default the
+         * server owns a fixed pool of {@link #threads(int)} daemon threads.
+         */
+        public Builder executor(ExecutorService executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Size of the default executor (default: the number of processors, at least 2).
+         */
+        public Builder threads(int threads) {
+            if (threads <= 0) {
+                throw new IllegalArgumentException("threads must be positive");
+            }
+            this.threads = threads;
+            return this;
+        }
+
+        /**
+         * Disable Nagle's algorithm on accepted connections (default {@code false}). HttpServer
+         * writes response headers and body separately, so small responses otherwise stall on
+         * delayed ACKs, typically ~40 ms per call.
+         * <p>
+         * This is JVM-wide: it sets the {@code sun.net.httpserver.nodelay} system property unless
+         * already set, and the JDK reads that property only once, when its first HttpServer is
+         * created. It affects every HttpServer in the JVM and has no effect if one was created
+         * before this server.
+         */
+        public Builder tcpNoDelay(boolean tcpNoDelay) {
+            this.tcpNoDelay = tcpNoDelay;
+            return this;
+        }
+
+        /**
+         * Create the server, binding its socket.
+         *
+         * @throws UncheckedIOException if the address cannot be bound
+         */
+        public SdkMcpHttpServer build() {
+            try {
+                return new SdkMcpHttpServer(this);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot bind SDK MCP HTTP server", e);
+            }
+        }
+    }
+}
@@ -1,32 +1,88 @@
 package com.anthropic.claude.sdk.mcp;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.RawValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * In-process MCP server implementation for Java SDK.
+ * <p>
+ * {@link #handleMessage(JsonNode)} never blocks the caller (the query's reader thread): tool
+ * handlers are invoked on the server's tool executor and the response future completes when the
+ * handler's future does, so concurrent {@code tools/call} requests run in parallel.
+ * <p>
+ * The {@code initialize} and {@code tools/list} results are serialized once, when the server is
+ * built, and embedded as raw JSON in every response.
+ * <p>
+ * Tools with an idempotent {@link SdkMcpTool.CachePolicy} get a {@link ToolResultCache}. The
+ * cache belongs to the server instance, so every session the server is attached to shares it.
+ * <p>
+ * Likewise per server: a tool's {@link SdkMcpTool#getMaxConcurrentCalls() concurrency limit},
+ * queue wait and {@link SdkMcpTool#getTimeout() timeout} are enforced across all sessions, and
+ * rejected or timed-out calls are answered with a JSON-RPC error. See {@link #getToolMetrics}.
+ * <p>
+ * For tools built with {@link SdkMcpTool.Builder#validateInput(boolean) validateInput(true)},
+ * arguments are validated against the input schema before dispatch; invalid calls get an
+ * {@code Invalid params} (-32602) error without reaching the handler.
+ * <p>
+ * Tools can be added and removed while the server is in use. Each change publishes a new
+ * immutable snapshot of the tool set (copy-on-write), so calls never lock, and every attached
+ * session is sent {@code notifications/tools/list_changed}. Calls already running finish
+ * against the snapshot they started with.
+ * <p>
+ * {@link #handleJsonRpc} also accepts JSON-RPC batches and lets tool handlers report progress
+ * through {@link ToolProgress}.
  */
 public final class SdkMcpServer {
 
+    private static final Logger logger = LoggerFactory.getLogger(SdkMcpServer.class);
     private static final String PROTOCOL_VERSION = "2024-11-05";
 
     private final String name;
     private final String version;
-    private final Map<String, SdkMcpTool> tools;
+    private final Executor toolExecutor;
     private final ObjectMapper mapper = new ObjectMapper();
+    private final RawValue initializeResult;
+    private final Set<Consumer<Map<String, Object>>> sessions = new CopyOnWriteArraySet<>();
+    // Replaced wholesale under this lock; read without locking
+    private volatile Registry registry;
 
     private SdkMcpServer(Builder builder) {
         this.name = builder.name;
         this.version = builder.version;
-        this.tools = builder.tools;
+        this.toolExecutor = builder.toolExecutor != null ? builder.toolExecutor : DefaultToolExecutor.INSTANCE;
+        Map<String, ToolEntry> entries = new LinkedHashMap<>();
+        for (SdkMcpTool tool : builder.tools.values()) {
+            entries.put(tool.getName(), new ToolEntry(tool, new ToolMetrics(), defaultConcurrencyLimit()));
+        }
+        this.registry = new Registry(entries, serialize(buildToolsList(entries)));
+        this.initializeResult = serialize(buildInitializeResult());
     }
 
     public static Builder builder() {
@@ -41,8 +97,98 @@ public final class SdkMcpServer {
         return version;
     }
 
+    /**
+     * A snapshot of the server's tools, in registration order. The map is read-only and does not
+     * reflect later changes.
+     */
     public Map<String, SdkMcpTool> getTools() {
-        return tools;
+        return registry.tools;
+    }
+
+    /**
+     * Add a tool, or replace the tool with the same name, and notify attached sessions.
+     * A replaced tool starts with an empty result cache and a fresh bulkhead; its metrics carry over.
+     */
+    public void addTool(SdkMcpTool tool) {
+        Objects.requireNonNull(tool, "tool");
+        synchronized (this) {
+            Map<String, ToolEntry> entries = new LinkedHashMap<>(registry.entries);
+            ToolEntry previous = entries.get(tool.getName());
+            entries.put(tool.getName(), new ToolEntry(tool, previous != null ? previous.metrics : new ToolMetrics(),
+                    defaultConcurrencyLimit()));
+            publish(entries);
+        }
+        notifyToolsChanged();
+    }
+
+    /**
+     * Remove a tool and notify attached sessions.
+     *
+     * @return whether the tool existed
+     */
+    public boolean removeTool(String toolName) {
+        synchronized (this) {
+            if (!registry.entries.containsKey(toolName)) {
+                return false;
+            }
+            Map<String, ToolEntry> entries = new LinkedHashMap<>(registry.entries);
+            entries.remove(toolName);
+            publish(entries);
+        }
+        notifyToolsChanged();
+        return true;
+    }
+
+    /**
+     * Attach a session. Until the returned handle is closed, the session receives the server's
+     * notifications (JSON-RPC messages without an id) through {@code sink}.
+     */
+    public Attachment attach(Consumer<Map<String, Object>> sink) {
+        Consumer<Map<String, Object>> registered = Objects.requireNonNull(sink, "sink")::accept;
+        sessions.add(registered);
+        return () -> sessions.remove(registered);
+    }
+
+    /**
+     * Handle that detaches a session from the server.
+     */
+    public interface Attachment extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    /**
+     * Result cache of a tool, or {@code null} if the tool's results are not cached.
+     */
+    public ToolResultCache getResultCache(String toolName) {
+        ToolEntry entry = registry.entries.get(toolName);
+        return entry != null ? entry.cache : null;
+    }
+
+    /**
+     * Latency, queue-time and error metrics of a tool, or {@code null} for an unknown tool.
+     */
+    public ToolMetrics getToolMetrics(String toolName) {
+        ToolEntry entry = registry.entries.get(toolName);
+        return entry != null ? entry.metrics : null;
+    }
+
+    // Caller holds the lock
+    private void publish(Map<String, ToolEntry> entries) {
+        registry = new Registry(entries, serialize(buildToolsList(entries)));
+    }
+
+    private void notifyToolsChanged() {
+        Map<String, Object> notification = new HashMap<>();
+        notification.put("jsonrpc", "2.0");
+        notification.put("method", "notifications/tools/list_changed");
+        for (Consumer<Map<String, Object>> session : sessions) {
+            try {
+                session.accept(notification);
+            } catch (RuntimeException e) {
+                logger.warn("Failed to notify session of tool list change", e);
+            }
+        }
     }
 
     public Map<String, Object> toCliConfig() {
@@ -53,93 +199,453 @@ public final class SdkMcpServer {
         return config;
     }
 
-    public Map<String, Object> handleMessage(JsonNode message) {
+    /**
+     * Handle one JSON-RPC message.
+     *
+     * @param message the JSON-RPC request
+     * @return a future with the JSON-RPC response, or with {@code null} for a notification; tool
+     * failures complete it with an error response rather than exceptionally
+     */
+    public CompletableFuture<Map<String, Object>> handleMessage(JsonNode message) {
+        return handleSingle(message, null);
+    }
+
+    /**
+     * Handle a JSON-RPC message or batch from a session.
+     * <p>
+     * The members of a batch are dispatched at once and run concurrently; the batch response
+     * lists their responses in request order. Progress reports from tool handlers go to
+     * {@code notifications} for requests carrying a {@code progressToken}.
+     *
+     * @param message       a request, a notification, or an array of them
+     * @param notifications receives notifications for this session, or {@code null} to drop them
+     * @return a future with the response: a {@code Map} for a single request, a {@code List} for a
+     * batch, or {@code null} when there is nothing to send back (notifications only)
+     */
+    public CompletableFuture<Object> handleJsonRpc(JsonNode message, Consumer<Map<String, Object>> notifications) {
+        if (message == null || !message.isArray()) {
+            return handleSingle(message, notifications).thenApply(response -> response);
+        }
+        if (message.size() == 0) {
+            return CompletableFuture.completedFuture(errorResponse(null, -32600, "Invalid Request: empty batch"));
+        }
+        List<CompletableFuture<Map<String, Object>>> responses = new ArrayList<>(message.size());
+        for (JsonNode member : message) {
+            responses.add(handleSingle(member, notifications));
+        }
+        return CompletableFuture.allOf(responses.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+            List<Map<String, Object>> batch = new ArrayList<>(responses.size());
+            for (CompletableFuture<Map<String, Object>> response : responses) {
+                Map<String, Object> value = response.join();
+                if (value != null) {
+                    batch.add(value);
+                }
+            }
+            return batch.isEmpty() ? null : batch;
+        });
+    }
+
+    private CompletableFuture<Map<String, Object>> handleSingle(JsonNode message,
+                                                                Consumer<Map<String, Object>> notifications) {
+        if (message == null || !message.isObject()) {
+            return CompletableFuture.completedFuture(errorResponse(null, -32600, "Invalid Request"));
+        }
         String method = message.has("method") ? message.get("method").asText() : null;
         JsonNode idNode = message.get("id");
+        boolean notification = idNode == null;
         Object id = idNode != null ? mapper.convertValue(idNode, Object.class) : null;
+        if (method == null) {
+            // A response to a server request; this server sends none, so ignore it
+            return CompletableFuture.completedFuture(notification ? null : errorResponse(id, -32600, "Invalid Request"));
+        }
+        if (notification && method.startsWith("notifications/")) {
+            // notifications/initialized, notifications/cancelled: nothing to do
+            return CompletableFuture.completedFuture(null);
+        }
 
+        CompletableFuture<?> result;
         try {
-            Map<String, Object> response = new HashMap<>();
-            response.put("jsonrpc", "2.0");
-            response.put("id", id);
-
             if ("initialize".equals(method)) {
-                response.put("result", buildInitializeResult());
+                result = CompletableFuture.completedFuture(initializeResult);
             } else if ("tools/list".equals(method)) {
-                response.put("result", buildToolsList());
+                result = CompletableFuture.completedFuture(registry.toolsListResult);
             } else if ("tools/call".equals(method)) {
                 JsonNode params = message.get("params");
-                response.put("result", handleCallTool(params));
+                result = handleCallTool(params, progressFor(params, notifications));
+            } else if ("ping".equals(method)) {
+                result = CompletableFuture.completedFuture(Collections.emptyMap());
             } else {
-                response.put("error", Map.of(
-                        "code", -32601,
-                        "message", "Method not found: " + method
-                ));
+                return CompletableFuture.completedFuture(
+                        notification ? null : errorResponse(id, -32601, "Method not found: " + method));
             }
-
-            return response;
         } catch (Exception ex) {
+            return CompletableFuture.completedFuture(notification ? null : errorResponse(id, ex));
+        }
+
+        return result.handle((value, error) -> {
+            if (notification) {
+                return null;
+            }
+            if (error != null) {
+                return errorResponse(id, error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error);
+            }
             Map<String, Object> response = new HashMap<>();
             response.put("jsonrpc", "2.0");
             response.put("id", id);
-            response.put("error", Map.of(
-                    "code", -32000,
-                    "message", ex.getMessage() != null ? ex.getMessage() : "SDK MCP error"
-            ));
+            response.put("result", value);
             return response;
+        });
+    }
+
+    /**
+     * Reporter sending {@code notifications/progress} for the request's progress token, if any.
+     */
+    private ToolProgress progressFor(JsonNode params, Consumer<Map<String, Object>> notifications) {
+        JsonNode token = params != null ? params.path("_meta").get("progressToken") : null;
+        if (token == null || token.isNull() || notifications == null) {
+            return ToolProgress.NONE;
+        }
+        Object progressToken = mapper.convertValue(token, Object.class);
+        return (progress, total, message) -> {
+            Map<String, Object> progressParams = new LinkedHashMap<>();
+            progressParams.put("progressToken", progressToken);
+            progressParams.put("progress", progress);
+            if (total != null) {
+                progressParams.put("total", total);
+            }
+            if (message != null) {
+                progressParams.put("message", message);
+            }
+            Map<String, Object> notification = new HashMap<>();
+            notification.put("jsonrpc", "2.0");
+            notification.put("method", "notifications/progress");
+            notification.put("params", progressParams);
+            try {
+                notifications.accept(notification);
+            } catch (RuntimeException e) {
+                logger.warn("Failed to send progress notification", e);
+            }
+        };
+    }
+
+    private static Map<String, Object> errorResponse(Object id, Throwable ex) {
+        int code = ex instanceof InvalidParamsException ? -32602 : -32000;
+        return errorResponse(id, code, ex.getMessage() != null ? ex.getMessage() : "SDK MCP error");
+    }
+
+    static Map<String, Object> errorResponse(Object id, int code, String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("jsonrpc", "2.0");
+        response.put("id", id);
+        response.put("error", Map.of(
+                "code", code,
+                "message", message
+        ));
+        return response;
+    }
+
+    private RawValue serialize(Map<String, Object> result) {
+        try {
+            return new RawValue(mapper.writeValueAsString(result));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize MCP server " + name + ": " + e.getMessage(), e);
         }
     }
 
     private Map<String, Object> buildInitializeResult() {
         Map<String, Object> result = new HashMap<>();
         result.put("protocolVersion", PROTOCOL_VERSION);
-        result.put("capabilities", Collections.singletonMap("tools", Collections.emptyMap()));
+        result.put("capabilities", Collections.singletonMap("tools", Collections.singletonMap("listChanged", true)));
         result.put("serverInfo", Map.of("name", name, "version", version));
         return result;
     }
 
-    private Map<String, Object> buildToolsList() {
+    private static Map<String, Object> buildToolsList(Map<String, ToolEntry> entries) {
         List<Object> toolEntries = new ArrayList<>();
-        for (SdkMcpTool tool : tools.values()) {
-            toolEntries.add(Map.of(
-                    "name", tool.getName(),
-                    "description", tool.getDescription(),
-                    "inputSchema", tool.toSchema()
-            ));
+        for (ToolEntry toolEntry : entries.values()) {
+            SdkMcpTool tool = toolEntry.tool;
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("name", tool.getName());
+            if (tool.getDescription() != null) {
+                entry.put("description", tool.getDescription());
+            }
+            entry.put("inputSchema", tool.toSchema());
+            toolEntries.add(entry);
         }
         return Map.of("tools", toolEntries);
     }
 
     @SuppressWarnings("unchecked")
-    private Map<String, Object> handleCallTool(JsonNode params) throws Exception {
+    private CompletableFuture<Map<String, Object>> handleCallTool(JsonNode params, ToolProgress progress) {
         if (params == null) {
             throw new IllegalArgumentException("Missing params for tools/call");
         }
 
         String toolName = params.has("name") ? params.get("name").asText() : null;
-        if (toolName == null || !tools.containsKey(toolName)) {
+        ToolEntry entry = toolName != null ? registry.entries.get(toolName) : null;
+        if (entry == null) {
             throw new IllegalArgumentException("Tool not found: " + toolName);
         }
 
-        Map<String, Object> arguments = params.has("arguments")
-                ? mapper.convertValue(params.get("arguments"), Map.class)
-                : Collections.emptyMap();
+        JsonNode arguments = params.get("arguments");
+        if (arguments == null || arguments.isNull()) {
+            arguments = mapper.createObjectNode();
+        }
 
-        SdkMcpTool tool = tools.get(toolName);
-        CompletableFuture<Map<String, Object>> future = tool.getHandler().handle(arguments);
-        Map<String, Object> result = future.join();
+        SdkMcpTool tool = entry.tool;
+        String violation = tool.validate(arguments);
+        if (violation != null) {
+            throw new InvalidParamsException("Invalid arguments for tool " + toolName + ": " + violation);
+        }
+        ToolResultCache cache = entry.cache;
+        if (cache != null) {
+            Function<Map<String, Object>, Object> keyExtractor = tool.getCachePolicy().getKeyExtractor();
+            Object key = keyExtractor != null
+                    ? keyExtractor.apply(mapper.convertValue(arguments, Map.class))
+                    : arguments;
+            if (key != null) {
+                JsonNode callArguments = arguments;
+                return cache.get(key, () -> invoke(entry, callArguments, progress));
+            }
+        }
+        return invoke(entry, arguments, progress);
+    }
 
-        if (result == null) {
-            result = Collections.emptyMap();
+    private CompletableFuture<Map<String, Object>> invoke(ToolEntry entry, JsonNode arguments, ToolProgress progress) {
+        SdkMcpTool tool = entry.tool;
+        ToolBulkhead bulkhead = entry.bulkhead;
+        ToolMetrics toolMetrics = entry.metrics;
+        if (bulkhead == null) {
+            return run(tool, arguments, progress, null, toolMetrics, System.nanoTime());
         }
+        long queuedAt = System.nanoTime();
+        CompletableFuture<Map<String, Object>> result = new CompletableFuture<>();
+        bulkhead.acquire().whenComplete((ignored, error) -> {
+            if (error != null) {
+                toolMetrics.rejected();
+                result.completeExceptionally(error);
+                return;
+            }
+            run(tool, arguments, progress, bulkhead, toolMetrics, queuedAt).whenComplete((value, failure) -> {
+                if (failure != null) {
+                    result.completeExceptionally(failure);
+                } else {
+                    result.complete(value);
+                }
+            });
+        });
+        return result;
+    }
 
+    /**
+     * Limit for tools that set none: on the shared default executor every tool gets a bulkhead,
+     * so one hung tool cannot occupy the whole pool. A caller-supplied executor is left alone.
+     */
+    private int defaultConcurrencyLimit() {
+        return toolExecutor == DefaultToolExecutor.INSTANCE ? DefaultToolExecutor.PER_TOOL : 0;
+    }
+
+    /**
+     * Run a handler that holds a bulkhead slot (if any), applying the tool's timeout.
+     * <p>
+     * A timeout answers the client but does not free the slot: that happens only when the
+     * handler's own future completes, so hung handlers cannot pile up beyond the bulkhead.
+     * A handler still being invoked when the timeout fires is interrupted; one still waiting in
+     * the executor's queue is cancelled and never runs.
+     */
+    private CompletableFuture<Map<String, Object>> run(SdkMcpTool tool, JsonNode arguments, ToolProgress progress,
+                                                       ToolBulkhead bulkhead, ToolMetrics toolMetrics,
+                                                       long queuedAt) {
+        long startedAt = System.nanoTime();
+        toolMetrics.started(startedAt - queuedAt);
+        Invocation invocation = new Invocation(tool, arguments, progress);
+        try {
+            // Handlers may do blocking work before returning their future, so invoke them off the caller
+            toolExecutor.execute(invocation);
+        } catch (RejectedExecutionException e) {
+            invocation.returned.completeExceptionally(new RejectedExecutionException(
+                    "Tool " + tool.getName() + " is busy: the tool executor is saturated", e));
+        }
+        CompletableFuture<Map<String, Object>> handled = invocation.returned
+                .thenCompose(future -> future != null ? future : CompletableFuture.completedFuture(null))
+                .thenApply(result -> result != null ? result : Collections.<String, Object>emptyMap());
+        if (bulkhead != null) {
+            handled.whenComplete((value, error) -> bulkhead.release());
+        }
+        Duration timeout = tool.getTimeout();
+        CompletableFuture<Map<String, Object>> call = handled;
+        if (timeout != null) {
+            // Time out a copy, leaving the handler's future to track when the slot is free
+            call = handled.copy().orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        }
+
+        CompletableFuture<Map<String, Object>> result = new CompletableFuture<>();
+        call.whenComplete((value, error) -> {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error;
+            boolean timedOut = cause instanceof TimeoutException && timeout != null;
+            toolMetrics.completed(System.nanoTime() - startedAt, error != null, timedOut);
+            if (timedOut) {
+                TimeoutException timeoutError = new TimeoutException(
+                        "Tool " + tool.getName() + " timed out after " + timeout.toMillis() + " ms");
+                if (invocation.cancel(timeoutError) && toolExecutor instanceof ThreadPoolExecutor) {
+                    ((ThreadPoolExecutor) toolExecutor).remove(invocation);
+                }
+                result.completeExceptionally(timeoutError);
+            } else if (error != null) {
+                result.completeExceptionally(cause);
+            } else {
+                result.complete(value);
+            }
+        });
         return result;
     }
 
+    /**
+     * One handler invocation, queued on the tool executor. Tracks the invoking thread so a
+     * timeout can cancel the call before it starts or interrupt it while the handler is being
+     * invoked, without ever interrupting the thread once it has moved on to other work.
+     */
+    private static final class Invocation implements Runnable {
+        final CompletableFuture<CompletableFuture<Map<String, Object>>> returned = new CompletableFuture<>();
+        private final SdkMcpTool tool;
+        private final JsonNode arguments;
+        private final ToolProgress progress;
+
+        // Guarded by this
+        private boolean started;
+        private Thread thread;
+
+        Invocation(SdkMcpTool tool, JsonNode arguments, ToolProgress progress) {
+            this.tool = tool;
+            this.arguments = arguments;
+            this.progress = progress;
+        }
+
+        @Override
+        public void run() {
+            synchronized (this) {
+                if (started) {
+                    return;
+                }
+                started = true;
+                thread = Thread.currentThread();
+            }
+            try {
+                returned.complete(tool.call(arguments, progress));
+            } catch (Throwable e) {
+                returned.completeExceptionally(e);
+            } finally {
+                synchronized (this) {
+                    thread = null;
+                    // Clear an interrupt that arrived as the handler returned
+                    Thread.interrupted();
+                }
+            }
+        }
+
+        /**
+         * Cancel the call if its handler has not started, otherwise interrupt a handler still
+         * being invoked.
+         *
+         * @return true if the call was cancelled before it started
+         */
+        synchronized boolean cancel(Throwable reason) {
+            if (!started) {
+                started = true;
+                returned.completeExceptionally(reason);
+                return true;
+            }
+            if (thread != null) {
+                thread.interrupt();
+            }
+            return false;
+        }
+    }
+
+    /**
+     * A tool with the server-side state that lives as long as it is registered.
+     */
+    private static final class ToolEntry {
+        final SdkMcpTool tool;
+        final ToolResultCache cache;
+        final ToolBulkhead bulkhead;
+        final ToolMetrics metrics;
+
+        ToolEntry(SdkMcpTool tool, ToolMetrics metrics, int defaultLimit) {
+            this.tool = tool;
+            SdkMcpTool.CachePolicy policy = tool.getCachePolicy();
+            this.cache = policy != null && policy.isIdempotent() ? new ToolResultCache(policy) : null;
+            int limit = tool.getMaxConcurrentCalls() > 0 ? tool.getMaxConcurrentCalls() : defaultLimit;
+            this.bulkhead = limit > 0
+                    ? new ToolBulkhead(tool.getName(), limit, tool.getMaxQueueWait().toNanos())
+                    : null;
+            this.metrics = metrics;
+        }
+    }
+
+    /**
+     * Immutable snapshot of the tool set with its pre-serialized {@code tools/list} result.
+     */
+    private static final class Registry {
+        final Map<String, ToolEntry> entries;
+        final Map<String, SdkMcpTool> tools;
+        final RawValue toolsListResult;
+
+        Registry(Map<String, ToolEntry> entries, RawValue toolsListResult) {
+            this.entries = Collections.unmodifiableMap(entries);
+            Map<String, SdkMcpTool> tools = new LinkedHashMap<>();
+            for (ToolEntry entry : entries.values()) {
+                tools.put(entry.tool.getName(), entry.tool);
+            }
+            this.tools = Collections.unmodifiableMap(tools);
+            this.toolsListResult = toolsListResult;
+        }
+    }
+
+    private static final class InvalidParamsException extends IllegalArgumentException {
+        private static final long serialVersionUID = 1L;
+
+        InvalidParamsException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Shared default executor for tool handlers: up to {@link #THREADS} daemon threads, created
+     * on demand and reclaimed when idle. At most {@link #QUEUE_CAPACITY} calls wait for a thread;
+     * beyond that calls are rejected. Tools without their own limit get a bulkhead of
+     * {@link #PER_TOOL}, so a hung tool holds at most that many threads.
+     */
+    private static final class DefaultToolExecutor {
+        static final int THREADS = Math.max(16, 4 * Runtime.getRuntime().availableProcessors());
+        static final int PER_TOOL = Math.max(4, THREADS / 4);
+        static final int QUEUE_CAPACITY = 1024;
+        static final Executor INSTANCE = create();
+
+        private static Executor create() {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(THREADS, THREADS, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(QUEUE_CAPACITY), new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable task) {
+                    Thread thread = new Thread(task, "sdk-mcp-tool-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        }
+    }
+
     public static final class Builder {
         private String name;
         private String version = "1.0.0";
         private Map<String, SdkMcpTool> tools = new LinkedHashMap<>();
+        private Executor toolExecutor;
 
         private Builder() {
         }
@@ -164,6 +670,18 @@ public final class SdkMcpServer {
             return this;
         }
 
+        /**
+         * Executor that invokes tool handlers (default: a shared pool of daemon threads, at most
+         * 16 or four per processor, whichever is more, with a bounded queue). On the default
+         * pool, tools that set no {@link SdkMcpTool.Builder#maxConcurrentCalls(int) limit} run
+         * at most a quarter of the pool's threads (at least 4) at once; with a custom executor
+         * they are unlimited.
+         */
+        public Builder toolExecutor(Executor toolExecutor) {
+            this.toolExecutor = toolExecutor;
+            return this;
+        }
+
         public SdkMcpServer build() {
             return new SdkMcpServer(this);
         }
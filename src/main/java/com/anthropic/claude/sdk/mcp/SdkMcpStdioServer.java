@@ -0,0 +1,155 @@
+package com.anthropic.claude.sdk.mcp;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Phaser;
+
+/**
+ * Serves an {@link SdkMcpServer} as a standalone MCP server over the stdio transport:
+ * newline-delimited JSON-RPC messages on an input stream, responses on an output stream.
+ * <p>
+ * Messages are handed to {@link SdkMcpServer#handleJsonRpc} as they are read and each response
+ * is written when it completes, so slow tools don't hold up later requests. Notifications get
+ * no response; a batch gets one response array. While running, the server's own notifications
+ * (tool list changes, progress) are written to the output stream too. Only JSON-RPC goes to the
+ * output stream; log elsewhere.
+ *
+ * <pre>{@code
+ * public static void main(String[] args) throws IOException {
+ *     SdkMcpStdioServer.builder().server(server).build().run();
+ * }
+ * }</pre>
+ */
+public final class SdkMcpStdioServer {
+
+    private static final Logger logger = LoggerFactory.getLogger(SdkMcpStdioServer.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final SdkMcpServer server;
+    private final InputStream input;
+    private final OutputStream output;
+    private final Object writeLock = new Object();
+
+    private SdkMcpStdioServer(Builder builder) {
+        this.server = Objects.requireNonNull(builder.server, "server");
+        this.input = builder.input != null ? builder.input : System.in;
+        this.output = builder.output != null ? builder.output : System.out;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Serve until the input stream ends, then wait for outstanding responses.
+     */
+    public void run() throws IOException {
+        // One party for the reader plus one per request in flight
+        Phaser inFlight = new Phaser(1);
+        SdkMcpServer.Attachment attachment = server.attach(this::writeNotification);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                JsonNode message;
+                try {
+                    message = MAPPER.readTree(line);
+                } catch (IOException e) {
+                    write(parseError(e));
+                    continue;
+                }
+                inFlight.register();
+                server.handleJsonRpc(message, this::writeNotification).whenComplete((response, error) -> {
+                    try {
+                        if (error != null) {
+                            logger.warn("SDK MCP request failed", error);
+                        } else if (response != null) {
+                            write(response);
+                        }
+                    } catch (UncheckedIOException e) {
+                        logger.warn("Failed to write SDK MCP response", e);
+                    } finally {
+                        inFlight.arriveAndDeregister();
+                    }
+                });
+            }
+        } finally {
+            // Stay attached until outstanding calls finish so their notifications still go out
+            inFlight.arriveAndAwaitAdvance();
+            attachment.close();
+        }
+    }
+
+    private void writeNotification(Map<String, Object> notification) {
+        try {
+            write(notification);
+        } catch (UncheckedIOException e) {
+            logger.warn("Failed to write SDK MCP notification", e);
+        }
+    }
+
+    private void write(Object message) {
+        try {
+            byte[] bytes = MAPPER.writeValueAsBytes(message);
+            synchronized (writeLock) {
+                output.write(bytes);
+                output.write('\n');
+                output.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static Map<String, Object> parseError(IOException e) {
+        return SdkMcpServer.errorResponse(null, -32700, "Parse error: " + e.getMessage());
+    }
+
+    public static final class Builder {
+        private SdkMcpServer server;
+        private InputStream input;
+        private OutputStream output;
+
+        private Builder() {
+        }
+
+        public Builder server(SdkMcpServer server) {
+            this.server = server;
+            return this;
+        }
+
+        /**
+         * Stream to read requests from (default {@code System.in}).
+         */
+        public Builder input(InputStream input) {
+            this.input = input;
+            return this;
+        }
+
+        /**
+         * Stream to write responses to (default {@code System.out}).
+         */
+        public Builder output(OutputStream output) {
+            this.output = output;
+            return this;
+        }
+
+        public SdkMcpStdioServer build() {
+            return new SdkMcpStdioServer(this);
+        }
+    }
+}
@@ -1,31 +1,131 @@
 package com.anthropic.claude.sdk.mcp;
 
+import com.anthropic.claude.sdk.protocol.JsonSchemaGenerator;
+import com.anthropic.claude.sdk.protocol.StructuredOutputReaders;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 /**
  * Definition for an SDK MCP tool that runs in-process.
+ * <p>
+ * Tools either take their arguments as a {@code Map} ({@link #builder()}) or bound to a Java
+ * type ({@link #typed(String, Class, Function)}).
  */
 public final class SdkMcpTool {
 
+    private static final ObjectMapper MAPPER = new ObjectMapper().registerModule(new Jdk8Module());
+
     private final String name;
     private final String description;
     private final Map<String, Object> inputSchema;
+    private final Map<String, Object> schema;
+    private final InputValidator validator;
     private final ToolHandler handler;
+    private final BiFunction<JsonNode, ToolProgress, CompletableFuture<Map<String, Object>>> boundHandler;
+    private final CachePolicy cachePolicy;
+    private final int maxConcurrentCalls;
+    private final Duration maxQueueWait;
+    private final Duration timeout;
 
     private SdkMcpTool(Builder builder) {
         this.name = builder.name;
         this.description = builder.description;
         this.inputSchema = builder.inputSchema;
-        this.handler = builder.handler;
+        this.schema = buildSchema(builder.inputSchema);
+        this.validator = builder.validateInput ? InputValidator.compile(schema) : null;
+        BiFunction<JsonNode, ToolProgress, CompletableFuture<Map<String, Object>>> bound = builder.boundHandler;
+        this.boundHandler = bound;
+        this.handler = bound != null
+                ? input -> bound.apply(MAPPER.valueToTree(input), ToolProgress.NONE)
+                : builder.handler;
+        this.cachePolicy = builder.cachePolicy;
+        this.maxConcurrentCalls = builder.maxConcurrentCalls;
+        this.maxQueueWait = builder.maxQueueWait;
+        this.timeout = builder.timeout;
     }
 
     public static Builder builder() {
         return new Builder();
     }
 
+    /**
+     * Start a tool whose arguments are bound to {@code inputType}.
+     * <p>
+     * The input schema is generated from {@code inputType} once, here, and each call binds the
+     * arguments straight from the JSON request into an {@code I} with a cached reader. The
+     * handler's output is returned to the model as a single text block: a {@code String} as is,
+     * anything else serialized to JSON.
+     *
+     * @param inputType a POJO, record or other type that binds from a JSON object
+     * @return a builder with the name, input schema and handler set
+     */
+    public static <I, O> Builder typed(String name, Class<I> inputType,
+                                       Function<? super I, CompletableFuture<O>> handler) {
+        Objects.requireNonNull(handler, "handler");
+        return typed(name, inputType, (I input, ToolProgress progress) -> handler.apply(input));
+    }
+
+    /**
+     * Like {@link #typed(String, Class, Function)}, for handlers that report progress.
+     */
+    public static <I, O> Builder typed(String name, Class<I> inputType,
+                                       BiFunction<? super I, ToolProgress, CompletableFuture<O>> handler) {
+        Objects.requireNonNull(handler, "handler");
+        Map<String, Object> schema = JsonSchemaGenerator.schemaFor(inputType);
+        if (!"object".equals(schema.get("type"))) {
+            throw new IllegalArgumentException("Tool input type must bind from a JSON object: " + inputType.getName());
+        }
+        ObjectReader reader = StructuredOutputReaders.forType(inputType);
+        Builder builder = builder().name(name).inputSchema(schema);
+        builder.boundHandler = (arguments, progress) -> {
+            I input;
+            try {
+                input = reader.readValue(arguments);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Invalid arguments for tool " + name + ": " + e.getMessage(), e);
+            }
+            CompletableFuture<O> output = handler.apply(input, progress);
+            return output == null ? null : output.thenApply(value -> toCallResult(name, value));
+        };
+        return builder;
+    }
+
+    private static Map<String, Object> toCallResult(String name, Object value) {
+        if (value == null) {
+            return null;
+        }
+        String text;
+        if (value instanceof String) {
+            text = (String) value;
+        } else {
+            try {
+                text = MAPPER.writeValueAsString(value);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Cannot serialize result of tool " + name + ": " + e.getMessage(), e);
+            }
+        }
+        Map<String, Object> block = new LinkedHashMap<>();
+        block.put("type", "text");
+        block.put("text", text);
+        return Collections.singletonMap("content", Collections.singletonList(block));
+    }
+
     public String getName() {
         return name;
     }
@@ -38,10 +138,63 @@ public final class SdkMcpTool {
         return inputSchema;
     }
 
+    /**
+     * The handler, taking arguments as a {@code Map}. For typed tools this is an adapter that
+     * binds the map to the input type first.
+     */
     public ToolHandler getHandler() {
         return handler;
     }
 
+    /**
+     * Check arguments against the input schema.
+     *
+     * @return {@code null} if they are valid or validation is off, otherwise the first violation
+     */
+    String validate(JsonNode arguments) {
+        return validator != null ? validator.validate(arguments) : null;
+    }
+
+    /**
+     * Invoke the tool with arguments as received; typed tools bind them without a {@code Map}.
+     */
+    @SuppressWarnings("unchecked")
+    CompletableFuture<Map<String, Object>> call(JsonNode arguments, ToolProgress progress) {
+        if (boundHandler != null) {
+            return boundHandler.apply(arguments, progress);
+        }
+        return handler.handle(MAPPER.convertValue(arguments, Map.class));
+    }
+
+    /**
+     * Result caching policy, or {@code null} when results are never reused.
+     */
+    public CachePolicy getCachePolicy() {
+        return cachePolicy;
+    }
+
+    /**
+     * Maximum calls of this tool running at once per server, or 0 for the server's default
+     * (see {@link SdkMcpServer.Builder#toolExecutor}).
+     */
+    public int getMaxConcurrentCalls() {
+        return maxConcurrentCalls;
+    }
+
+    /**
+     * How long a call may wait for a free slot when {@link #getMaxConcurrentCalls()} is reached.
+     */
+    public Duration getMaxQueueWait() {
+        return maxQueueWait;
+    }
+
+    /**
+     * Per-call timeout, or {@code null} for none.
+     */
+    public Duration getTimeout() {
+        return timeout;
+    }
+
     /**
      * Handler invoked when Claude calls this tool.
      */
@@ -50,57 +203,153 @@ public final class SdkMcpTool {
         CompletableFuture<Map<String, Object>> handle(Map<String, Object> input);
     }
 
+    /**
+     * Handler for long-running tools that report progress while they work.
+     */
+    @FunctionalInterface
+    public interface ProgressToolHandler {
+        CompletableFuture<Map<String, Object>> handle(Map<String, Object> input, ToolProgress progress);
+    }
+
+    /**
+     * The tool's input as a JSON Schema object, computed once when the tool is built.
+     */
     public Map<String, Object> toSchema() {
-        if (inputSchema == null || inputSchema.isEmpty()) {
-            return defaultSchema(Collections.emptyMap());
+        return schema;
+    }
+
+    private static Map<String, Object> buildSchema(Map<String, Object> definition) {
+        if (definition == null || definition.isEmpty()) {
+            return propertiesSchema(Collections.emptyMap());
         }
 
-        if (inputSchema.containsKey("type") && inputSchema.containsKey("properties")) {
-            return inputSchema;
+        if (definition.containsKey("type") && definition.containsKey("properties")) {
+            return Collections.unmodifiableMap(definition);
         }
 
-        return defaultSchema(inputSchema);
+        return propertiesSchema(definition);
     }
 
+    /**
+     * Schema for a map of property name to {@link Type}, schema map, or JSON type name.
+     * Properties are required unless declared as {@code Optional}.
+     */
     @SuppressWarnings("unchecked")
-    private Map<String, Object> defaultSchema(Map<String, Object> definition) {
-        Map<String, Object> properties = new HashMap<>();
+    private static Map<String, Object> propertiesSchema(Map<String, Object> definition) {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        List<String> required = new ArrayList<>();
 
         for (Map.Entry<String, Object> entry : definition.entrySet()) {
             Object type = entry.getValue();
-            if (type instanceof Class<?>) {
-                properties.put(entry.getKey(), mapClassToSchema((Class<?>) type));
+            if (type instanceof Type) {
+                properties.put(entry.getKey(), JsonSchemaGenerator.schemaFor((Type) type));
             } else if (type instanceof Map<?, ?>) {
-                properties.put(entry.getKey(), new HashMap<>((Map<String, Object>) type));
+                properties.put(entry.getKey(), new LinkedHashMap<>((Map<String, Object>) type));
             } else if (type instanceof String) {
                 properties.put(entry.getKey(), Collections.singletonMap("type", type));
             } else {
                 properties.put(entry.getKey(), Collections.singletonMap("type", "string"));
             }
+            if (!JsonSchemaGenerator.isOptional(type instanceof Type ? (Type) type : null)) {
+                required.add(entry.getKey());
+            }
         }
 
-        Map<String, Object> schema = new HashMap<>();
+        Map<String, Object> schema = new LinkedHashMap<>();
         schema.put("type", "object");
-        schema.put("properties", properties);
-        schema.put("required", properties.keySet());
-        return schema;
+        schema.put("properties", Collections.unmodifiableMap(properties));
+        schema.put("required", Collections.unmodifiableList(required));
+        return Collections.unmodifiableMap(schema);
     }
 
-    private Map<String, Object> mapClassToSchema(Class<?> cls) {
-        String type;
-        if (cls == String.class) {
-            type = "string";
-        } else if (cls == Integer.class || cls == int.class) {
-            type = "integer";
-        } else if (cls == Double.class || cls == double.class
-                || cls == Float.class || cls == float.class) {
-            type = "number";
-        } else if (cls == Boolean.class || cls == boolean.class) {
-            type = "boolean";
-        } else {
-            type = "string";
+    /**
+     * How a server may reuse results of this tool. Only idempotent tools are cached: identical
+     * calls (by cache key) within the TTL are answered from the cache, and concurrent identical
+     * calls share one handler invocation. Failed calls are not cached.
+     */
+    public static final class CachePolicy {
+        private final boolean idempotent;
+        private final Duration ttl;
+        private final int maxEntries;
+        private final Function<Map<String, Object>, Object> keyExtractor;
+
+        private CachePolicy(Builder builder) {
+            this.idempotent = builder.idempotent;
+            this.ttl = builder.ttl;
+            this.maxEntries = builder.maxEntries;
+            this.keyExtractor = builder.keyExtractor;
+        }
+
+        public static Builder builder() {
+            return new Builder();
+        }
+
+        public boolean isIdempotent() {
+            return idempotent;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        /**
+         * Maps call arguments to the cache key, or {@code null} (the default) to key on the
+         * arguments JSON itself.
+         */
+        public Function<Map<String, Object>, Object> getKeyExtractor() {
+            return keyExtractor;
+        }
+
+        public static final class Builder {
+            private boolean idempotent = true;
+            private Duration ttl = Duration.ofMinutes(5);
+            private int maxEntries = 1000;
+            private Function<Map<String, Object>, Object> keyExtractor;
+
+            private Builder() {
+            }
+
+            /**
+             * Whether repeated calls with the same key may share a result (default {@code true}).
+             */
+            public Builder idempotent(boolean idempotent) {
+                this.idempotent = idempotent;
+                return this;
+            }
+
+            public Builder ttl(Duration ttl) {
+                if (ttl == null || ttl.isNegative() || ttl.isZero()) {
+                    throw new IllegalArgumentException("ttl must be positive");
+                }
+                this.ttl = ttl;
+                return this;
+            }
+
+            public Builder maxEntries(int maxEntries) {
+                if (maxEntries <= 0) {
+                    throw new IllegalArgumentException("maxEntries must be positive");
+                }
+                this.maxEntries = maxEntries;
+                return this;
+            }
+
+            /**
+             * Derive the cache key from the arguments; a {@code null} key bypasses the cache
+             * for that call.
+             */
+            public Builder keyExtractor(Function<Map<String, Object>, Object> keyExtractor) {
+                this.keyExtractor = Objects.requireNonNull(keyExtractor, "keyExtractor");
+                return this;
+            }
+
+            public CachePolicy build() {
+                return new CachePolicy(this);
+            }
         }
-        return Collections.singletonMap("type", type);
     }
 
     public static final class Builder {
@@ -108,6 +357,12 @@ public final class SdkMcpTool {
         private String description;
         private Map<String, Object> inputSchema;
         private ToolHandler handler;
+        private BiFunction<JsonNode, ToolProgress, CompletableFuture<Map<String, Object>>> boundHandler;
+        private CachePolicy cachePolicy;
+        private boolean validateInput;
+        private int maxConcurrentCalls;
+        private Duration maxQueueWait = Duration.ofSeconds(30);
+        private Duration timeout;
 
         private Builder() {
         }
@@ -122,13 +377,95 @@ public final class SdkMcpTool {
             return this;
         }
 
+        /**
+         * Input schema: either a complete JSON Schema object, or a map from property name to
+         * a Java {@link Type} (any type {@link JsonSchemaGenerator} handles, including POJOs,
+         * records, enums and generic collections), a property schema map, or a JSON type name.
+         */
         public Builder inputSchema(Map<String, Object> inputSchema) {
             this.inputSchema = inputSchema;
             return this;
         }
 
+        /**
+         * Input schema generated from the properties of {@code inputType}.
+         */
+        public Builder inputSchema(Class<?> inputType) {
+            this.inputSchema = JsonSchemaGenerator.schemaFor(inputType);
+            return this;
+        }
+
         public Builder handler(ToolHandler handler) {
             this.handler = handler;
+            this.boundHandler = null;
+            return this;
+        }
+
+        /**
+         * Handler that receives a {@link ToolProgress} to report progress to the client.
+         */
+        @SuppressWarnings("unchecked")
+        public Builder progressHandler(ProgressToolHandler handler) {
+            Objects.requireNonNull(handler, "handler");
+            this.handler = null;
+            this.boundHandler = (arguments, progress) ->
+                    handler.handle(MAPPER.convertValue(arguments, Map.class), progress);
+            return this;
+        }
+
+        /**
+         * Let servers cache this tool's results; see {@link CachePolicy}.
+         */
+        public Builder cachePolicy(CachePolicy cachePolicy) {
+            this.cachePolicy = cachePolicy;
+            return this;
+        }
+
+        /**
+         * Whether servers reject arguments that do not match the input schema before calling the
+         * handler (default {@code false}). When enabled, calls that previously reached the handler
+         * with mismatched arguments get an {@code Invalid params} error instead.
+         */
+        public Builder validateInput(boolean validateInput) {
+            this.validateInput = validateInput;
+            return this;
+        }
+
+        /**
+         * Bulkhead: at most this many calls run at once; further calls queue (default 0: the
+         * server's default, see {@link SdkMcpServer.Builder#toolExecutor}).
+         */
+        public Builder maxConcurrentCalls(int maxConcurrentCalls) {
+            if (maxConcurrentCalls < 0) {
+                throw new IllegalArgumentException("maxConcurrentCalls must not be negative");
+            }
+            this.maxConcurrentCalls = maxConcurrentCalls;
+            return this;
+        }
+
+        /**
+         * How long a queued call waits for a slot before it is rejected (default 30 seconds;
+         * zero rejects at once when the tool is saturated).
+         */
+        public Builder maxQueueWait(Duration maxQueueWait) {
+            if (maxQueueWait == null || maxQueueWait.isNegative()) {
+                throw new IllegalArgumentException("maxQueueWait must not be negative");
+            }
+            this.maxQueueWait = maxQueueWait;
+            return this;
+        }
+
+        /**
+         * Fail a call that has not completed this long after it was dispatched to the tool
+         * executor. A call still queued there is cancelled; a handler still being invoked is
+         * interrupted, and the call's bulkhead slot stays taken until the handler's future
+         * completes.
+         */
+        public Builder timeout(Duration timeout) {
+            if (timeout != null && (timeout.isNegative() || timeout.isZero())) {
+                throw new IllegalArgumentException("timeout must be positive");
+            }
+            this.timeout = timeout;
             return this;
         }
 
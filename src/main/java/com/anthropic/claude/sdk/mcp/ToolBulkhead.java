@@ -0,0 +1,86 @@
+package com.anthropic.claude.sdk.mcp;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asynchronous semaphore limiting how many calls of one tool run at once.
+ * <p>
+ * Waiting calls hold no thread: {@link #acquire()} returns a future that completes when a permit
+ * is handed over, or fails with {@link RejectedExecutionException} once the queue wait elapses.
+ */
+final class ToolBulkhead {
+
+    private final String toolName;
+    private final long maxWaitNanos;
+
+    // Guarded by this
+    private int available;
+    private final ArrayDeque<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+
+    ToolBulkhead(String toolName, int permits, long maxWaitNanos) {
+        this.toolName = toolName;
+        this.available = permits;
+        this.maxWaitNanos = maxWaitNanos;
+    }
+
+    /**
+     * Take a permit; the caller must {@link #release()} it exactly once.
+     */
+    CompletableFuture<Void> acquire() {
+        CompletableFuture<Void> waiter = new CompletableFuture<>();
+        synchronized (this) {
+            if (available > 0) {
+                available--;
+                waiter.complete(null);
+                return waiter;
+            }
+            if (maxWaitNanos == 0) {
+                waiter.completeExceptionally(busy());
+                return waiter;
+            }
+            waiters.add(waiter);
+        }
+        // A permit is handed over by complete(null), so exactly one of release() and the
+        // timeout wins the race for each waiter
+        CompletableFuture<Void> permit = new CompletableFuture<>();
+        waiter.orTimeout(maxWaitNanos, TimeUnit.NANOSECONDS).whenComplete((ignored, error) -> {
+            if (error == null) {
+                permit.complete(null);
+                return;
+            }
+            synchronized (this) {
+                waiters.remove(waiter);
+            }
+            permit.completeExceptionally(busy());
+        });
+        return permit;
+    }
+
+    void release() {
+        while (true) {
+            CompletableFuture<Void> next;
+            synchronized (this) {
+                next = waiters.poll();
+                if (next == null) {
+                    available++;
+                    return;
+                }
+            }
+            if (next.complete(null)) {
+                return;
+            }
+        }
+    }
+
+    synchronized int queued() {
+        return waiters.size();
+    }
+
+    private RejectedExecutionException busy() {
+        return new RejectedExecutionException("Tool " + toolName + " is busy: no free slot within "
+                + TimeUnit.NANOSECONDS.toMillis(maxWaitNanos) + " ms");
+    }
+}
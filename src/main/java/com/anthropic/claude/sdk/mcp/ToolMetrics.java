@@ -0,0 +1,105 @@
+package com.anthropic.claude.sdk.mcp;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Call metrics for one tool of an {@link SdkMcpServer}, across every session using the server.
+ * Only calls that reach the handler path are counted; results served from the
+ * {@link ToolResultCache} are not.
+ */
+public final class ToolMetrics {
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+    private final LongAdder latencyNanos = new LongAdder();
+    private final LongAccumulator maxLatencyNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder queueNanos = new LongAdder();
+    private final LongAccumulator maxQueueNanos = new LongAccumulator(Math::max, 0);
+    private final AtomicInteger active = new AtomicInteger();
+
+    ToolMetrics() {
+    }
+
+    void started(long queuedNanos) {
+        active.incrementAndGet();
+        queueNanos.add(queuedNanos);
+        maxQueueNanos.accumulate(queuedNanos);
+    }
+
+    void completed(long elapsedNanos, boolean failed, boolean timedOut) {
+        active.decrementAndGet();
+        calls.increment();
+        latencyNanos.add(elapsedNanos);
+        maxLatencyNanos.accumulate(elapsedNanos);
+        if (failed) {
+            errors.increment();
+        }
+        if (timedOut) {
+            timeouts.increment();
+        }
+    }
+
+    void rejected() {
+        rejections.increment();
+    }
+
+    /**
+     * Calls whose handler ran to completion, failure or timeout.
+     */
+    public long callCount() {
+        return calls.sum();
+    }
+
+    /**
+     * Calls that failed, including timeouts.
+     */
+    public long errorCount() {
+        return errors.sum();
+    }
+
+    public long timeoutCount() {
+        return timeouts.sum();
+    }
+
+    /**
+     * Calls rejected because no bulkhead slot freed up within the queue wait.
+     */
+    public long rejectionCount() {
+        return rejections.sum();
+    }
+
+    /**
+     * Calls currently running.
+     */
+    public int activeCount() {
+        return active.get();
+    }
+
+    public double averageLatencyMillis() {
+        return average(latencyNanos.sum(), calls.sum());
+    }
+
+    public double maxLatencyMillis() {
+        return maxLatencyNanos.get() / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Average time calls waited for a bulkhead slot before their handler started.
+     */
+    public double averageQueueMillis() {
+        return average(queueNanos.sum(), calls.sum() + active.get());
+    }
+
+    public double maxQueueMillis() {
+        return maxQueueNanos.get() / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    private static double average(long totalNanos, long count) {
+        return count == 0 ? 0 : totalNanos / (double) count / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
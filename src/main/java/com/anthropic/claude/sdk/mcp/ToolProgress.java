@@ -0,0 +1,31 @@
+package com.anthropic.claude.sdk.mcp;
+
+/**
+ * Progress callback handed to long-running tool handlers.
+ * <p>
+ * When the client asked for progress (a {@code progressToken} in the request's {@code _meta}),
+ * each report is sent to that client as a {@code notifications/progress} message; otherwise
+ * reports are dropped. Progress should increase with every report.
+ */
+@FunctionalInterface
+public interface ToolProgress {
+
+    /**
+     * Reporter that drops every report.
+     */
+    ToolProgress NONE = (progress, total, message) -> {
+    };
+
+    /**
+     * Report progress.
+     *
+     * @param progress work done so far
+     * @param total    total work, or {@code null} if unknown
+     * @param message  human-readable status, or {@code null}
+     */
+    void report(double progress, Double total, String message);
+
+    default void report(double progress, double total) {
+        report(progress, total, null);
+    }
+}
@@ -0,0 +1,160 @@
+package com.anthropic.claude.sdk.mcp;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Result cache for one tool of an {@link SdkMcpServer}, shared by every session using the server.
+ * <p>
+ * Each key maps to the future of the call that produced (or is producing) its result, so
+ * concurrent identical calls share one handler invocation (single flight). An entry expires
+ * {@link SdkMcpTool.CachePolicy#getTtl() ttl} after its call completes; failed calls are
+ * removed as soon as they fail. When the cache is full the oldest entries are evicted first.
+ */
+public final class ToolResultCache {
+
+    private final long ttlNanos;
+    private final int maxEntries;
+    // Guarded by itself; insertion-ordered so iteration starts at the oldest entry
+    private final LinkedHashMap<Object, Entry> entries = new LinkedHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder inFlightHits = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    ToolResultCache(SdkMcpTool.CachePolicy policy) {
+        this.ttlNanos = policy.getTtl().toNanos();
+        this.maxEntries = policy.getMaxEntries();
+    }
+
+    /**
+     * Return the cached or in-flight result for {@code key}, or start {@code call} and cache it.
+     */
+    CompletableFuture<Map<String, Object>> get(Object key, Supplier<CompletableFuture<Map<String, Object>>> call) {
+        long now = System.nanoTime();
+        Entry entry;
+        synchronized (entries) {
+            Entry existing = entries.get(key);
+            if (existing != null && !existing.isExpired(now)) {
+                if (existing.future.isDone()) {
+                    hits.increment();
+                } else {
+                    inFlightHits.increment();
+                }
+                return existing.future;
+            }
+            if (existing != null) {
+                // Re-insert so the refreshed entry moves to the end of the eviction order
+                entries.remove(key);
+            }
+            entry = new Entry(key);
+            entries.put(key, entry);
+            evictOverflow();
+        }
+        misses.increment();
+
+        CompletableFuture<Map<String, Object>> result;
+        try {
+            result = call.get();
+        } catch (RuntimeException e) {
+            result = new CompletableFuture<>();
+            result.completeExceptionally(e);
+        }
+        result.whenComplete((value, error) -> {
+            if (error != null) {
+                remove(entry);
+                entry.future.completeExceptionally(error);
+            } else {
+                entry.expiresAt = System.nanoTime() + ttlNanos;
+                entry.future.complete(value);
+            }
+        });
+        return entry.future;
+    }
+
+    /**
+     * Drop every cached result.
+     */
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Calls answered from a completed cached result.
+     */
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Calls that joined an identical call still in flight.
+     */
+    public long inFlightHitCount() {
+        return inFlightHits.sum();
+    }
+
+    /**
+     * Calls that invoked the tool handler.
+     */
+    public long missCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Fraction of calls that did not invoke the handler, or 0 before the first call.
+     */
+    public double hitRate() {
+        long reused = hits.sum() + inFlightHits.sum();
+        long total = reused + misses.sum();
+        return total == 0 ? 0 : (double) reused / total;
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    // Called with the lock held
+    private void evictOverflow() {
+        Iterator<Entry> oldest = entries.values().iterator();
+        while (entries.size() > maxEntries && oldest.hasNext()) {
+            oldest.next();
+            oldest.remove();
+            evictions.increment();
+        }
+    }
+
+    private void remove(Entry entry) {
+        synchronized (entries) {
+            entries.remove(entry.key, entry);
+        }
+    }
+
+    private static final class Entry {
+        final Object key;
+        final CompletableFuture<Map<String, Object>> future = new CompletableFuture<>();
+        // Set when the call completes; until then the entry never expires
+        volatile long expiresAt = Long.MAX_VALUE;
+
+        Entry(Object key) {
+            this.key = key;
+        }
+
+        boolean isExpired(long now) {
+            long deadline = expiresAt;
+            return deadline != Long.MAX_VALUE && now - deadline > 0;
+        }
+    }
+}
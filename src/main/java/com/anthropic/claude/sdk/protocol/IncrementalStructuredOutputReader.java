@@ -0,0 +1,363 @@
+package com.anthropic.claude.sdk.protocol;
+
+import com.anthropic.claude.sdk.exceptions.MessageParseException;
+import com.anthropic.claude.sdk.types.content.ContentBlock;
+import com.anthropic.claude.sdk.types.content.TextBlock;
+import com.anthropic.claude.sdk.types.content.ToolUseBlock;
+import com.anthropic.claude.sdk.types.messages.AssistantMessage;
+import com.anthropic.claude.sdk.types.messages.Message;
+import com.anthropic.claude.sdk.types.messages.ResultSuccess;
+import com.anthropic.claude.sdk.types.messages.StreamEvent;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Incremental reader that emits pieces of a structured output while it is still being generated.
+ * <p>
+ * Partial JSON (stream deltas or assistant text) is fed to a non-blocking Jackson parser; every
+ * array element or top-level field is bound and returned as soon as it is syntactically closed,
+ * so downstream processing can overlap generation instead of waiting for the final result.
+ * <p>
+ * Instances are stateful and not thread-safe; use one per query.
+ */
+public final class IncrementalStructuredOutputReader<T> {
+
+    /**
+     * Name of the tool Claude Code uses to return output for {@code --json-schema}.
+     */
+    static final String STRUCTURED_OUTPUT_TOOL = "StructuredOutput";
+
+    private enum Mode {
+        ROOT_ARRAY, FIELD_ARRAY, FIELDS
+    }
+
+    private final Mode mode;
+    private final String field;
+    private final ObjectReader reader;
+
+    private JsonParser parser;
+    private boolean started;
+    private boolean done;
+    private boolean sawDeltas;
+    private boolean toolSource;
+    private int toolBlockIndex = -1;
+    private int depth;
+    private String currentField;
+    private boolean inTargetArray;
+    private TokenBuffer capture;
+    private String captureField;
+    // Text read since the opening bracket until the first item is emitted, for rescanning prose
+    private StringBuilder candidate;
+
+    private IncrementalStructuredOutputReader(Mode mode, String field, Type itemType) {
+        this.mode = mode;
+        this.field = field;
+        this.reader = StructuredOutputReaders.forType(itemType);
+    }
+
+    /**
+     * Emit the elements of a top-level JSON array.
+     */
+    public static <T> IncrementalStructuredOutputReader<T> arrayElements(Class<T> itemType) {
+        return new IncrementalStructuredOutputReader<>(Mode.ROOT_ARRAY, null, itemType);
+    }
+
+    /**
+     * Emit the elements of the array held by {@code field} of a top-level JSON object.
+     */
+    public static <T> IncrementalStructuredOutputReader<T> arrayElements(String field, Class<T> itemType) {
+        return new IncrementalStructuredOutputReader<>(Mode.FIELD_ARRAY, field, itemType);
+    }
+
+    /**
+     * Emit each field of a top-level JSON object as a name/value pair.
+     */
+    public static IncrementalStructuredOutputReader<Map.Entry<String, JsonNode>> fields() {
+        return new IncrementalStructuredOutputReader<>(Mode.FIELDS, null, JsonNode.class);
+    }
+
+    /**
+     * Whether the top-level JSON value has been fully read.
+     */
+    public boolean isDone() {
+        return done;
+    }
+
+    /**
+     * Feed a message from the query stream and return the items it completed.
+     * <p>
+     * Partial stream events are preferred; assistant messages are only read when no
+     * deltas were seen, and the final result's {@code structured_output} is used when
+     * nothing else carried the output.
+     */
+    public List<T> feed(Message message) {
+        if (done) {
+            return Collections.emptyList();
+        }
+        if (message instanceof StreamEvent) {
+            return feedStreamEvent((StreamEvent) message);
+        }
+        if (message instanceof AssistantMessage && !sawDeltas) {
+            AssistantMessage assistant = (AssistantMessage) message;
+            if (isSubagent(assistant.parentToolUseId())) {
+                return Collections.emptyList();
+            }
+            List<T> items = new ArrayList<>();
+            for (ContentBlock block : assistant.content()) {
+                if (block instanceof ToolUseBlock
+                        && STRUCTURED_OUTPUT_TOOL.equals(((ToolUseBlock) block).name())) {
+                    switchToToolSource();
+                    items.addAll(feedJson(((ToolUseBlock) block).input()));
+                } else if (block instanceof TextBlock && !toolSource) {
+                    items.addAll(feed(((TextBlock) block).text()));
+                }
+            }
+            return items;
+        }
+        if (message instanceof ResultSuccess && !started) {
+            return feedJson(((ResultSuccess) message).structuredOutput());
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Feed a chunk of raw text and return the items it completed.
+     * Leading prose before the opening bracket of the top-level value is skipped.
+     */
+    public List<T> feed(String chunk) {
+        if (done || chunk == null || chunk.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<T> items = new ArrayList<>();
+        String text = chunk;
+        while (text != null && !done) {
+            text = feedText(text, items);
+        }
+        return items;
+    }
+
+    /**
+     * Feed one piece of text and return the part that still has to be scanned, or {@code null}
+     * when all of it was consumed.
+     */
+    private String feedText(String chunk, List<T> items) {
+        if (!started) {
+            int start = chunk.indexOf(mode == Mode.ROOT_ARRAY ? '[' : '{');
+            if (start < 0) {
+                return null;
+            }
+            chunk = chunk.substring(start);
+            parser = newParser();
+            started = true;
+            candidate = toolSource ? null : new StringBuilder();
+        }
+        if (candidate != null) {
+            candidate.append(chunk);
+        }
+        int before = items.size();
+        byte[] bytes = chunk.getBytes(StandardCharsets.UTF_8);
+        try {
+            ((ByteArrayFeeder) parser.getNonBlockingInputFeeder()).feedInput(bytes, 0, bytes.length);
+            drain(items);
+        } catch (JsonParseException e) {
+            if (toolSource) {
+                throw new MessageParseException("Malformed structured output", chunk, e);
+            }
+            // Prose that merely looked like JSON; rescan everything after the bracket that
+            // started it, unless items were already emitted from this value
+            String rescan = candidate != null && items.size() == before ? candidate.substring(1) : null;
+            reset();
+            return rescan;
+        } catch (IOException e) {
+            throw new MessageParseException("Failed to read structured output", chunk, e);
+        }
+        if (items.size() > before) {
+            candidate = null;
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<T> feedStreamEvent(StreamEvent event) {
+        if (isSubagent(event.parentToolUseId()) || !(event.event() instanceof Map)) {
+            return Collections.emptyList();
+        }
+        Map<String, Object> payload = (Map<String, Object>) event.event();
+        Object type = payload.get("type");
+        int index = payload.get("index") instanceof Number ? ((Number) payload.get("index")).intValue() : -1;
+
+        if ("content_block_start".equals(type) && payload.get("content_block") instanceof Map) {
+            Map<String, Object> block = (Map<String, Object>) payload.get("content_block");
+            if ("tool_use".equals(block.get("type")) && STRUCTURED_OUTPUT_TOOL.equals(block.get("name"))) {
+                switchToToolSource();
+                toolBlockIndex = index;
+            }
+            return Collections.emptyList();
+        }
+        if (!"content_block_delta".equals(type) || !(payload.get("delta") instanceof Map)) {
+            return Collections.emptyList();
+        }
+        Map<String, Object> delta = (Map<String, Object>) payload.get("delta");
+        Object deltaType = delta.get("type");
+        if ("input_json_delta".equals(deltaType) && toolSource && index == toolBlockIndex) {
+            sawDeltas = true;
+            return feed((String) delta.get("partial_json"));
+        }
+        if ("text_delta".equals(deltaType) && !toolSource) {
+            sawDeltas = true;
+            return feed((String) delta.get("text"));
+        }
+        return Collections.emptyList();
+    }
+
+    private List<T> feedJson(Object value) {
+        if (value == null) {
+            return Collections.emptyList();
+        }
+        try {
+            return feed(StructuredOutputReaders.writeValueAsString(value));
+        } catch (JsonProcessingException e) {
+            throw new MessageParseException("Failed to serialize structured output", String.valueOf(value), e);
+        }
+    }
+
+    private void switchToToolSource() {
+        if (!toolSource) {
+            toolSource = true;
+            reset();
+        }
+    }
+
+    private void drain(List<T> items) throws IOException {
+        JsonToken token;
+        while (!done && (token = parser.nextToken()) != JsonToken.NOT_AVAILABLE && token != null) {
+            if (capture != null) {
+                capture.copyCurrentEvent(parser);
+                if (token.isStructStart()) {
+                    depth++;
+                } else if (token.isStructEnd()) {
+                    depth--;
+                    if (depth == itemDepth()) {
+                        items.add(bind(capture, captureField));
+                        capture = null;
+                    }
+                }
+                continue;
+            }
+
+            if (token.isStructEnd()) {
+                depth--;
+                if (depth == 0) {
+                    done = true;
+                } else if (depth == 1) {
+                    inTargetArray = false;
+                }
+                continue;
+            }
+            if (token == JsonToken.FIELD_NAME) {
+                if (depth == 1) {
+                    currentField = parser.currentName();
+                }
+                continue;
+            }
+            if (depth == 0) {
+                checkRoot(token);
+            }
+            if (isItemPosition()) {
+                TokenBuffer buffer = new TokenBuffer(parser);
+                buffer.copyCurrentEvent(parser);
+                if (token.isStructStart()) {
+                    depth++;
+                    capture = buffer;
+                    captureField = currentField;
+                } else {
+                    items.add(bind(buffer, currentField));
+                }
+                continue;
+            }
+            if (token.isStructStart()) {
+                depth++;
+                if (mode == Mode.FIELD_ARRAY && depth == 2 && token == JsonToken.START_ARRAY
+                        && field.equals(currentField)) {
+                    inTargetArray = true;
+                }
+            }
+        }
+    }
+
+    private void checkRoot(JsonToken token) {
+        JsonToken expected = mode == Mode.ROOT_ARRAY ? JsonToken.START_ARRAY : JsonToken.START_OBJECT;
+        if (token != expected) {
+            throw new MessageParseException(
+                    "Expected structured output to start with " + expected + " but got " + token, null);
+        }
+    }
+
+    private boolean isItemPosition() {
+        switch (mode) {
+            case ROOT_ARRAY:
+                return depth == 1;
+            case FIELD_ARRAY:
+                return depth == 2 && inTargetArray;
+            default:
+                return depth == 1;
+        }
+    }
+
+    private int itemDepth() {
+        return mode == Mode.FIELD_ARRAY ? 2 : 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T bind(TokenBuffer buffer, String name) throws IOException {
+        try (JsonParser itemParser = buffer.asParser()) {
+            itemParser.nextToken();
+            Object value = reader.readValue(itemParser);
+            if (mode == Mode.FIELDS) {
+                return (T) new AbstractMap.SimpleImmutableEntry<>(name, value);
+            }
+            return (T) value;
+        }
+    }
+
+    private void reset() {
+        started = false;
+        parser = null;
+        depth = 0;
+        currentField = null;
+        inTargetArray = false;
+        capture = null;
+        candidate = null;
+    }
+
+    /**
+     * Whether a message belongs to a subagent. The CLI sends {@code "parent_tool_use_id": null}
+     * for top-level messages, which the parser reads as the text {@code "null"}.
+     */
+    private static boolean isSubagent(String parentToolUseId) {
+        return parentToolUseId != null && !"null".equals(parentToolUseId);
+    }
+
+    private static JsonParser newParser() {
+        try {
+            return StructuredOutputReaders.newNonBlockingParser();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to create non-blocking JSON parser", e);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.anthropic.claude.sdk.protocol;
+
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.temporal.Temporal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Derives JSON Schema documents from Java types.
+ * <p>
+ * Properties are discovered through Jackson's own bean introspection, so the generated
+ * schema names exactly the fields Jackson will bind when the model's output is read back.
+ * Schemas are computed once per type and cached. Properties are required unless they are
+ * {@code Optional}; {@code @JsonPropertyDescription} becomes the property's description.
+ */
+public final class JsonSchemaGenerator {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().registerModule(new Jdk8Module());
+    private static final Map<Type, Map<String, Object>> CACHE = new ConcurrentHashMap<>();
+
+    private JsonSchemaGenerator() {
+    }
+
+    /**
+     * Get the (cached, unmodifiable) schema for a type.
+     */
+    public static Map<String, Object> schemaFor(Type type) {
+        return CACHE.computeIfAbsent(type, t ->
+                Collections.unmodifiableMap(generate(MAPPER.constructType(t), new HashSet<>())));
+    }
+
+    /**
+     * Whether values of a type may be absent: {@code Optional} and its primitive variants.
+     */
+    public static boolean isOptional(Type type) {
+        if (type == null) {
+            return false;
+        }
+        Class<?> raw = MAPPER.constructType(type).getRawClass();
+        return raw == Optional.class || raw == OptionalInt.class || raw == OptionalLong.class
+                || raw == OptionalDouble.class;
+    }
+
+    private static Map<String, Object> generate(JavaType type, Set<Class<?>> visiting) {
+        Class<?> raw = type.getRawClass();
+        Map<String, Object> schema = new LinkedHashMap<>();
+
+        if (raw == Optional.class) {
+            return generate(type.containedTypeOrUnknown(0), visiting);
+        }
+        if (raw == String.class || raw == char.class || raw == Character.class
+                || CharSequence.class.isAssignableFrom(raw) || raw == UUID.class
+                || Date.class.isAssignableFrom(raw) || Temporal.class.isAssignableFrom(raw)) {
+            schema.put("type", "string");
+        } else if (raw == int.class || raw == Integer.class || raw == long.class || raw == Long.class
+                || raw == short.class || raw == Short.class || raw == byte.class || raw == Byte.class
+                || raw == BigInteger.class || raw == OptionalInt.class || raw == OptionalLong.class) {
+            schema.put("type", "integer");
+        } else if (raw == double.class || raw == Double.class || raw == float.class || raw == Float.class
+                || raw == BigDecimal.class || raw == Number.class || raw == OptionalDouble.class) {
+            schema.put("type", "number");
+        } else if (raw == boolean.class || raw == Boolean.class) {
+            schema.put("type", "boolean");
+        } else if (raw.isEnum()) {
+            List<String> values = new ArrayList<>();
+            for (Object constant : raw.getEnumConstants()) {
+                values.add(((Enum<?>) constant).name());
+            }
+            schema.put("type", "string");
+            schema.put("enum", values);
+        } else if (type.isArrayType() || type.isCollectionLikeType()) {
+            schema.put("type", "array");
+            schema.put("items", generate(type.getContentType(), visiting));
+        } else if (type.isMapLikeType()) {
+            schema.put("type", "object");
+            schema.put("additionalProperties", generate(type.getContentType(), visiting));
+        } else if (raw == Object.class || JsonNode.class.isAssignableFrom(raw)) {
+            // Any JSON value
+        } else if (!visiting.add(raw)) {
+            // Recursive reference; stop descending
+            schema.put("type", "object");
+        } else {
+            BeanDescription description = MAPPER.getDeserializationConfig().introspect(type);
+            Map<String, Object> properties = new LinkedHashMap<>();
+            List<String> required = new ArrayList<>();
+            for (BeanPropertyDefinition property : description.findProperties()) {
+                JavaType propertyType = property.getPrimaryType();
+                // Getter-only properties are never bound from input
+                if (propertyType == null || !property.couldDeserialize()) {
+                    continue;
+                }
+                Map<String, Object> propertySchema = generate(propertyType, visiting);
+                String propertyDescription = property.getMetadata().getDescription();
+                if (propertyDescription != null) {
+                    propertySchema = new LinkedHashMap<>(propertySchema);
+                    propertySchema.put("description", propertyDescription);
+                }
+                properties.put(property.getName(), propertySchema);
+                if (!isOptional(propertyType)) {
+                    required.add(property.getName());
+                }
+            }
+            visiting.remove(raw);
+            schema.put("type", "object");
+            schema.put("properties", properties);
+            schema.put("required", required);
+        }
+        return schema;
+    }
+}
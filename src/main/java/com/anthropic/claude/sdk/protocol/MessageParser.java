@@ -8,6 +8,8 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -20,17 +22,61 @@ public class MessageParser {
 
     private static final Logger logger = LoggerFactory.getLogger(MessageParser.class);
     private final ObjectMapper objectMapper;
+    private final StringInterner interner;
+    private final Type structuredOutputType;
 
     public MessageParser() {
+        this(StringInterner.shared(), null);
+    }
+
+    /**
+     * Create a parser that binds {@code structured_output} directly into the given type.
+     *
+     * @param structuredOutputType target type, or {@code null} to keep the generic Map/List form
+     */
+    public MessageParser(Type structuredOutputType) {
+        this(StringInterner.shared(), structuredOutputType);
+    }
+
+    /**
+     * Create a parser that deduplicates repeated identifiers through the given interner.
+     */
+    public MessageParser(StringInterner interner) {
+        this(interner, null);
+    }
+
+    public MessageParser(StringInterner interner, Type structuredOutputType) {
         this.objectMapper = new ObjectMapper();
+        this.interner = interner;
+        this.structuredOutputType = structuredOutputType;
+    }
+
+    public StringInterner getInterner() {
+        return interner;
     }
 
     /**
      * Parse a JSON line into a Message object.
      */
     public Message parse(String jsonLine) {
+        JsonNode root;
+        try {
+            root = objectMapper.readTree(jsonLine);
+        } catch (IOException e) {
+            throw new MessageParseException("Failed to parse message", jsonLine, e);
+        }
+        return parse(root, jsonLine);
+    }
+
+    /**
+     * Parse a message line that has already been read into a JSON tree.
+     */
+    public Message parse(JsonNode root) {
+        return parse(root, null);
+    }
+
+    private Message parse(JsonNode root, String jsonLine) {
         try {
-            JsonNode root = objectMapper.readTree(jsonLine);
             String type = root.get("type").asText();
 
             switch (type) {
@@ -51,12 +97,13 @@ public class MessageParser {
                 default:
                     throw new MessageParseException(
                             "Unknown message type: " + type,
-                            jsonLine
+                            jsonLine != null ? jsonLine : root.toString()
                     );
             }
 
         } catch (Exception e) {
-            throw new MessageParseException("Failed to parse message", jsonLine, e);
+            throw new MessageParseException("Failed to parse message",
+                    jsonLine != null ? jsonLine : String.valueOf(root), e);
         }
     }
 
@@ -71,15 +118,13 @@ public class MessageParser {
             }
         }
 
-        String parentToolUseId = root.has("parent_tool_use_id")
-                ? root.get("parent_tool_use_id").asText()
-                : null;
+        String parentToolUseId = internedText(root, "parent_tool_use_id");
         boolean isSynthetic = root.has("is_synthetic") && root.get("is_synthetic").asBoolean();
         Object toolUseResult = root.has("tool_use_result")
                 ? objectMapper.convertValue(root.get("tool_use_result"), Object.class)
                 : null;
         String uuid = root.has("uuid") ? root.get("uuid").asText() : null;
-        String sessionId = root.has("session_id") ? root.get("session_id").asText() : null;
+        String sessionId = internedText(root, "session_id");
         Boolean isReplay = root.has("is_replay") ? root.get("is_replay").asBoolean() : null;
 
         return new UserMessage(content, parentToolUseId, isSynthetic, toolUseResult, uuid, sessionId, isReplay);
@@ -96,15 +141,11 @@ public class MessageParser {
             }
         }
 
-        String model = messageNode != null && messageNode.has("model")
-                ? messageNode.get("model").asText()
-                : null;
-        String parentToolUseId = root.has("parent_tool_use_id")
-                ? root.get("parent_tool_use_id").asText()
-                : null;
+        String model = messageNode != null ? internedText(messageNode, "model") : null;
+        String parentToolUseId = internedText(root, "parent_tool_use_id");
         String error = root.has("error") ? root.get("error").asText() : null;
         String uuid = root.has("uuid") ? root.get("uuid").asText() : null;
-        String sessionId = root.has("session_id") ? root.get("session_id").asText() : null;
+        String sessionId = internedText(root, "session_id");
 
         Object rawMessage = messageNode != null
                 ? objectMapper.convertValue(messageNode, Object.class)
@@ -114,9 +155,9 @@ public class MessageParser {
     }
 
     private Message parseSystemMessage(JsonNode root) {
-        String subtype = root.has("subtype") ? root.get("subtype").asText() : null;
+        String subtype = internedText(root, "subtype");
         String uuid = root.has("uuid") ? root.get("uuid").asText() : null;
-        String sessionId = root.has("session_id") ? root.get("session_id").asText() : null;
+        String sessionId = internedText(root, "session_id");
 
         if ("init".equals(subtype)) {
             return parseSystemInitMessage(root, uuid, sessionId);
@@ -162,7 +203,7 @@ public class MessageParser {
                 ? objectMapper.convertValue(root.get("mcp_servers"),
                 objectMapper.getTypeFactory().constructCollectionType(ArrayList.class, SystemInitMessage.McpServerInfo.class))
                 : null;
-        String model = root.has("model") ? root.get("model").asText() : null;
+        String model = internedText(root, "model");
         String permissionMode = root.has("permissionMode") ? root.get("permissionMode").asText()
                 : (root.has("permission_mode") ? root.get("permission_mode").asText() : null);
         List<String> slashCommands = root.has("slash_commands")
@@ -193,13 +234,13 @@ public class MessageParser {
         return new SystemHookResponseMessage(hookName, hookEvent, stdout, stderr, exitCode, uuid, sessionId);
     }
 
-    private ResultMessage parseResultMessage(JsonNode root) {
-        String subtype = root.has("subtype") ? root.get("subtype").asText() : "success";
+    private ResultMessage parseResultMessage(JsonNode root) throws IOException {
+        String subtype = root.has("subtype") ? internedText(root, "subtype") : "success";
         long durationMs = root.has("duration_ms") ? root.get("duration_ms").asLong() : 0;
         long durationApiMs = root.has("duration_api_ms") ? root.get("duration_api_ms").asLong() : 0;
         boolean isError = root.has("is_error") && root.get("is_error").asBoolean();
         int numTurns = root.has("num_turns") ? root.get("num_turns").asInt() : 0;
-        String sessionId = root.has("session_id") ? root.get("session_id").asText() : null;
+        String sessionId = internedText(root, "session_id");
         String uuid = root.has("uuid") ? root.get("uuid").asText() : null;
         double totalCostUsd = root.has("total_cost_usd") ? root.get("total_cost_usd").asDouble() : 0.0;
 
@@ -238,7 +279,7 @@ public class MessageParser {
         if ("success".equals(subtype)) {
             String result = root.has("result") ? root.get("result").asText() : null;
             Object structuredOutput = root.has("structured_output")
-                    ? objectMapper.convertValue(root.get("structured_output"), Object.class)
+                    ? parseStructuredOutput(root.get("structured_output"))
                     : null;
 
             return new ResultSuccess(
@@ -263,6 +304,22 @@ public class MessageParser {
         }
     }
 
+    /**
+     * Bind {@code structured_output} to the configured type. Output that does not fit the type is
+     * kept in its generic form so the result is still delivered; binding it again in
+     * {@code awaitStructuredOutput} reports the error to the caller.
+     */
+    private Object parseStructuredOutput(JsonNode node) {
+        if (structuredOutputType != null) {
+            try {
+                return StructuredOutputReaders.read(node, structuredOutputType);
+            } catch (IOException e) {
+                logger.debug("structured_output does not bind to {}", structuredOutputType.getTypeName(), e);
+            }
+        }
+        return objectMapper.convertValue(node, Object.class);
+    }
+
     private ContentBlock parseContentBlock(JsonNode blockNode) {
         String type = blockNode.get("type").asText();
 
@@ -285,7 +342,7 @@ public class MessageParser {
                 );
                 return new ToolUseBlock(
                         blockNode.get("id").asText(),
-                        blockNode.get("name").asText(),
+                        interner.intern(blockNode.get("name").asText()),
                         input
                 );
             }
@@ -324,26 +381,24 @@ public class MessageParser {
 
     private StreamEvent parseStreamEvent(JsonNode root) {
         String uuid = root.has("uuid") ? root.get("uuid").asText() : null;
-        String sessionId = root.has("session_id") ? root.get("session_id").asText() : null;
+        String sessionId = internedText(root, "session_id");
 
         Object event = root.has("event") && !root.get("event").isNull()
                 ? objectMapper.convertValue(root.get("event"), Object.class)
                 : null;
 
-        String parentToolUseId = root.has("parent_tool_use_id")
-                ? root.get("parent_tool_use_id").asText()
-                : null;
+        String parentToolUseId = internedText(root, "parent_tool_use_id");
 
         return new StreamEvent(event, parentToolUseId, uuid, sessionId);
     }
 
     private ToolProgressMessage parseToolProgressMessage(JsonNode root) {
         String toolUseId = root.has("tool_use_id") ? root.get("tool_use_id").asText() : null;
-        String toolName = root.has("tool_name") ? root.get("tool_name").asText() : null;
-        String parentToolUseId = root.has("parent_tool_use_id") ? root.get("parent_tool_use_id").asText() : null;
+        String toolName = internedText(root, "tool_name");
+        String parentToolUseId = internedText(root, "parent_tool_use_id");
         double elapsedTimeSeconds = root.has("elapsed_time_seconds") ? root.get("elapsed_time_seconds").asDouble() : 0.0;
         String uuid = root.has("uuid") ? root.get("uuid").asText() : null;
-        String sessionId = root.has("session_id") ? root.get("session_id").asText() : null;
+        String sessionId = internedText(root, "session_id");
 
         return new ToolProgressMessage(toolUseId, toolName, parentToolUseId, elapsedTimeSeconds, uuid, sessionId);
     }
@@ -358,8 +413,16 @@ public class MessageParser {
                 : null;
         String error = root.has("error") ? root.get("error").asText() : null;
         String uuid = root.has("uuid") ? root.get("uuid").asText() : null;
-        String sessionId = root.has("session_id") ? root.get("session_id").asText() : null;
+        String sessionId = internedText(root, "session_id");
 
         return new AuthStatusMessage(isAuthenticating, output, error, uuid, sessionId);
     }
+
+    /**
+     * Read a low-cardinality text field through the interner.
+     */
+    private String internedText(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value != null ? interner.intern(value.asText()) : null;
+    }
 }
@@ -0,0 +1,110 @@
+package com.anthropic.claude.sdk.protocol;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, lock-free string deduplication cache.
+ * <p>
+ * Used by {@link MessageParser} for low-cardinality fields that repeat on every
+ * message (session ids, model names, tool names, subtypes), so long sessions
+ * retain one instance per distinct value instead of one per message.
+ * <p>
+ * The cache is direct-mapped: each string hashes to a single slot and a colliding
+ * value simply replaces the previous occupant. Memory is therefore bounded by the
+ * slot count and lookups never block.
+ */
+public final class StringInterner {
+
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    /**
+     * Values longer than this are returned as-is; they are unlikely to repeat
+     * and would only evict useful entries.
+     */
+    public static final int DEFAULT_MAX_LENGTH = 256;
+
+    private static final StringInterner SHARED = new StringInterner(DEFAULT_CAPACITY, DEFAULT_MAX_LENGTH);
+
+    private final AtomicReferenceArray<String> slots;
+    private final int mask;
+    private final int maxLength;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public StringInterner() {
+        this(DEFAULT_CAPACITY, DEFAULT_MAX_LENGTH);
+    }
+
+    /**
+     * @param capacity  number of slots, rounded up to a power of two
+     * @param maxLength longest string that will be cached
+     */
+    public StringInterner(int capacity, int maxLength) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        int size = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * Process-wide interner shared by parsers created with the default constructor.
+     */
+    public static StringInterner shared() {
+        return SHARED;
+    }
+
+    /**
+     * Return a canonical instance equal to {@code value}.
+     */
+    public String intern(String value) {
+        if (value == null || value.length() > maxLength) {
+            return value;
+        }
+        int hash = value.hashCode();
+        int index = (hash ^ (hash >>> 16)) & mask;
+        String cached = slots.get(index);
+        if (cached != null && cached.hashCode() == hash && cached.equals(value)) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        slots.set(index, value);
+        return value;
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Fraction of lookups served from the cache, or {@code 0.0} if none were made.
+     */
+    public double hitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    public int capacity() {
+        return slots.length();
+    }
+
+    /**
+     * Drop all cached values and reset metrics.
+     */
+    public void clear() {
+        for (int i = 0; i < slots.length(); i++) {
+            slots.set(i, null);
+        }
+        hits.reset();
+        misses.reset();
+    }
+}
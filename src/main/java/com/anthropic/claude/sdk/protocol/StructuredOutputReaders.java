@@ -0,0 +1,81 @@
+package com.anthropic.claude.sdk.protocol;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache of {@link ObjectReader}s used to bind {@code structured_output} into user types.
+ * <p>
+ * Readers are immutable and thread-safe, so one instance per target type is shared by
+ * every parser and query in the process.
+ */
+public final class StructuredOutputReaders {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .registerModule(new Jdk8Module())
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private static final Map<Type, ObjectReader> READERS = new ConcurrentHashMap<>();
+
+    private StructuredOutputReaders() {
+    }
+
+    /**
+     * Get the cached reader for a target type.
+     */
+    public static ObjectReader forType(Type type) {
+        return READERS.computeIfAbsent(type, t -> MAPPER.readerFor(MAPPER.constructType(t)));
+    }
+
+    /**
+     * Create a parser that accepts input incrementally via its {@code ByteArrayFeeder}.
+     */
+    public static JsonParser newNonBlockingParser() throws IOException {
+        return MAPPER.getFactory().createNonBlockingByteArrayParser();
+    }
+
+    static String writeValueAsString(Object value) throws JsonProcessingException {
+        return MAPPER.writeValueAsString(value);
+    }
+
+    /**
+     * Bind a parsed JSON tree directly into the target type.
+     */
+    public static <T> T read(JsonNode node, Type type) throws IOException {
+        if (node == null || node.isNull()) {
+            return null;
+        }
+        return forType(type).readValue(node);
+    }
+
+    /**
+     * Convert an already-parsed structured output value into the target type.
+     * <p>
+     * Values that were bound up front (see {@link MessageParser#MessageParser(Type)})
+     * are returned without conversion.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T convert(Object value, Type type) throws IOException {
+        if (value == null) {
+            return null;
+        }
+        if (type instanceof Class<?> && ((Class<?>) type).isInstance(value)) {
+            return (T) value;
+        }
+        ObjectReader reader = forType(type);
+        if (reader.getValueType().getRawClass().isInstance(value)
+                && !reader.getValueType().isContainerType()) {
+            return (T) value;
+        }
+        return read(MAPPER.valueToTree(value), type);
+    }
+}
@@ -0,0 +1,162 @@
+package com.anthropic.claude.sdk.session;
+
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Append-only log of session entries stored in chunks that are never copied.
+ * <p>
+ * Chunk {@code b} holds {@code FIRST_CHUNK << b} entries, so an entry's chunk and slot follow
+ * from its offset with a couple of bit operations, and the log grows to any size without
+ * resizing a directory. Writers reserve a contiguous range of offsets with a single atomic add,
+ * fill their slots, and then publish in reservation order; a published slot is never written
+ * again, so readers take a snapshot just by reading the published size and never wait.
+ * <p>
+ * Writers are not lock-free: publishing waits until every earlier reservation has published,
+ * so a writer preempted between reserving and publishing holds up later appends and
+ * {@link #seal()} until it runs again. The window covers only copying the writer's entries.
+ */
+final class ChunkedEntryLog {
+
+    private static final int FIRST_SHIFT = 5;
+    private static final int FIRST_CHUNK = 1 << FIRST_SHIFT;
+    private static final int MAX_CHUNKS = Integer.SIZE - FIRST_SHIFT;
+
+    private final AtomicReferenceArray<SessionStoreEntry[]> chunks = new AtomicReferenceArray<>(MAX_CHUNKS);
+    private final AtomicLong reserved = new AtomicLong();
+    private volatile int published;
+
+    /**
+     * Append entries as one contiguous run. Runs from concurrent callers never interleave.
+     *
+     * @return false if the log has been {@linkplain #seal() sealed}; nothing was appended
+     */
+    boolean append(List<SessionStoreEntry> entries) {
+        SessionStoreEntry[] run = entries.toArray(new SessionStoreEntry[0]);
+        int n = run.length;
+        long start;
+        do {
+            start = reserved.get();
+            if (start < 0) {
+                return false;
+            }
+            if (start + n > Integer.MAX_VALUE - FIRST_CHUNK) {
+                throw new IllegalStateException("Session log is full");
+            }
+        } while (!reserved.compareAndSet(start, start + n));
+        try {
+            int offset = (int) start;
+            for (SessionStoreEntry entry : run) {
+                int pos = offset++ + FIRST_CHUNK;
+                int high = 31 - Integer.numberOfLeadingZeros(pos);
+                chunk(high - FIRST_SHIFT)[pos ^ (1 << high)] = entry;
+            }
+        } finally {
+            // Publish the whole reserved range even if filling failed (slots left null), so
+            // later appenders and seal() never wait on a range that will not be published
+            publish(start, start + n);
+        }
+        return true;
+    }
+
+    /**
+     * Publish in reservation order so the published prefix never has holes.
+     */
+    private void publish(long start, long end) {
+        awaitPublished(start);
+        published = (int) end;
+    }
+
+    /**
+     * Wait for earlier writers, backing off from spinning to parking if one is descheduled.
+     */
+    private void awaitPublished(long size) {
+        int spins = 0;
+        while (published != size) {
+            if (++spins < 100) {
+                Thread.onSpinWait();
+            } else if (spins < 200) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(10_000);
+            }
+        }
+    }
+
+    /**
+     * Stop accepting appends and wait for in-flight ones to publish.
+     *
+     * @return the final number of entries
+     */
+    int seal() {
+        long before = reserved.getAndUpdate(r -> r < 0 ? r : -r - 1);
+        long size = before < 0 ? -before - 1 : before;
+        awaitPublished(size);
+        return (int) size;
+    }
+
+    int size() {
+        return published;
+    }
+
+    /**
+     * Immutable view of the entries published so far.
+     */
+    List<SessionStoreEntry> snapshot() {
+        return new Snapshot(published);
+    }
+
+    /**
+     * Immutable view of at most {@code limit} published entries starting at {@code from}.
+     */
+    List<SessionStoreEntry> snapshot(long from, int limit) {
+        int size = published;
+        if (from >= size) {
+            return Collections.emptyList();
+        }
+        return new Snapshot(size).subList((int) from, (int) Math.min(size, from + limit));
+    }
+
+    private SessionStoreEntry get(int index) {
+        int pos = index + FIRST_CHUNK;
+        int high = 31 - Integer.numberOfLeadingZeros(pos);
+        return chunks.get(high - FIRST_SHIFT)[pos ^ (1 << high)];
+    }
+
+    private SessionStoreEntry[] chunk(int b) {
+        SessionStoreEntry[] chunk = chunks.get(b);
+        if (chunk == null) {
+            chunk = new SessionStoreEntry[FIRST_CHUNK << b];
+            if (!chunks.compareAndSet(b, null, chunk)) {
+                chunk = chunks.get(b);
+            }
+        }
+        return chunk;
+    }
+
+    private final class Snapshot extends AbstractList<SessionStoreEntry> implements RandomAccess {
+        private final int size;
+
+        Snapshot(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public SessionStoreEntry get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return ChunkedEntryLog.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,1287 @@
+package com.anthropic.claude.sdk.session;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Durable {@link SessionStore} backed by append-only JSONL segment files.
+ * <p>
+ * Each session key owns a directory, {@code <root>/<project>/<session>/}, holding segment files
+ * named by the offset of their first entry ({@code 00000000000000000000.jsonl}). Subpaths live
+ * under {@code <session>/_sub/<subpath>/}. Segments roll once they reach
+ * {@link Builder#segmentMaxBytes(long)}.
+ * <p>
+ * Appends from all sessions are encoded on the caller's thread and queued to a single writer
+ * thread. The writer drains the queue, writes the whole batch and fsyncs each touched segment
+ * once (group commit) before completing the callers' futures, so concurrent sessions share
+ * the cost of every fsync.
+ * <p>
+ * A session is opened lazily on first access, always on the writer thread. Opening scans only
+ * the last segment and truncates a torn or corrupt trailing line left by a crash.
+ * <p>
+ * {@link #load(SessionKey)} returns a lazy view over memory-mapped segments: entries are located
+ * through a sparse per-segment offset index and parsed only when accessed, so reading the tail of
+ * a long session costs only the entries touched. The view maps its segments up front and stays
+ * readable after a later delete, compaction or compression removes their files.
+ * <p>
+ * {@link #compact(SessionKey)} drops the entries before the last compact boundary from the live
+ * segments and writes them to a gzip archive file ({@code archive-<offset>.jsonl.gz}) next to
+ * them. Entries keep their absolute offsets in segment names, so a compacted session reopens
+ * like any other.
+ * <p>
+ * {@link #fork} hard-links the parent's sealed segments into the child's directory, so a branch
+ * shares the parent's files on disk (and their pages in the OS cache); only the segment the child
+ * continues appending to is copied, which is bounded by the segment size.
+ * <p>
+ * With {@link Builder#compressSealedSegments(boolean)}, segments are compressed by a background
+ * thread once sealed ({@code <offset>.jsonl.deflate}, see {@link SegmentFrames}). Segments shared
+ * with a fork stay uncompressed while they are shared. Each file holds
+ * independently inflatable frames primed with a preset dictionary trained once per project, so
+ * random access and tail reads only inflate the frames they touch.
+ */
+public final class FileSessionStore implements SessionStore, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileSessionStore.class);
+
+    static final String SEGMENT_SUFFIX = ".jsonl";
+    static final String COMPRESSED_SUFFIX = ".jsonl.deflate";
+    static final String SUBKEY_DIR = "_sub";
+    static final String ARCHIVE_PREFIX = "archive-";
+    static final String ARCHIVE_SUFFIX = ".jsonl.gz";
+    private static final byte[] BOUNDARY_MARKER = "compact_boundary".getBytes(StandardCharsets.UTF_8);
+    private static final String EMPTY_COMPONENT = "=";
+
+    private final Path root;
+    private final long segmentMaxBytes;
+    private final boolean fsync;
+    private final int maxBatchSize;
+    private final boolean archiveCompacted;
+    private final boolean compactOnBoundary;
+    private final SessionDictionaries dictionaries;
+    private final ExecutorService compressor;
+    private final ConcurrentHashMap<String, SessionLog> logs = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, Long>> recency = new ConcurrentHashMap<>();
+    private final BlockingQueue<WriteOp> queue = new LinkedBlockingQueue<>();
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    private final Thread writer;
+
+    private FileSessionStore(Builder builder) {
+        this.root = Objects.requireNonNull(builder.root, "root");
+        this.segmentMaxBytes = builder.segmentMaxBytes;
+        this.fsync = builder.fsync;
+        this.maxBatchSize = builder.maxBatchSize;
+        this.archiveCompacted = builder.archiveCompacted;
+        this.compactOnBoundary = builder.compactOnBoundary;
+        this.dictionaries = new SessionDictionaries(root);
+        this.compressor = builder.compressSealedSegments ? Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "file-session-store-compressor");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+        try {
+            Files.createDirectories(root);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create session store directory " + root, e);
+        }
+        this.writer = new Thread(this::writeLoop, "file-session-store-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    @Override
+    public CompletableFuture<Void> append(SessionKey key, List<SessionStoreEntry> entries) {
+        if (closed.get()) {
+            return failed(new IllegalStateException("Session store is closed"));
+        }
+        if (entries == null || entries.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        List<byte[]> lines = new ArrayList<>(entries.size());
+        boolean boundary = false;
+        try {
+            for (SessionStoreEntry entry : entries) {
+                lines.add(SessionEntryCodec.encode(entry));
+                boundary |= entry.isCompactBoundary();
+            }
+        } catch (IOException e) {
+            return failed(e);
+        }
+        // Opened by the writer if this is the session's first access
+        AppendOp op = new AppendOp(key, logs.get(storeKey(key)), lines);
+        queue.add(op);
+        if (boundary && compactOnBoundary) {
+            queue.add(new CompactOp(key));
+        }
+        return op.future;
+    }
+
+    @Override
+    public CompletableFuture<List<SessionStoreEntry>> load(SessionKey key) {
+        return snapshot(key, entries -> entries);
+    }
+
+    @Override
+    public CompletableFuture<List<SessionStoreEntry>> load(SessionKey key, long fromOffset, int limit) {
+        if (fromOffset < 0 || limit < 0) {
+            return SessionStore.super.load(key, fromOffset, limit);
+        }
+        return snapshot(key, entries -> {
+            int size = entries.size();
+            if (fromOffset >= size) {
+                return Collections.emptyList();
+            }
+            return entries.subList((int) fromOffset, (int) Math.min(size, fromOffset + limit));
+        });
+    }
+
+    @Override
+    public CompletableFuture<List<SessionStoreEntry>> loadTail(SessionKey key, int n) {
+        if (n < 0) {
+            return SessionStore.super.loadTail(key, n);
+        }
+        return snapshot(key, entries -> {
+            int size = entries.size();
+            return entries.subList(Math.max(0, size - n), size);
+        });
+    }
+
+    /**
+     * View the session's committed entries, asking the writer to open the session first if no
+     * one has accessed it yet.
+     */
+    private CompletableFuture<List<SessionStoreEntry>> snapshot(
+            SessionKey key, Function<MappedEntryList, List<SessionStoreEntry>> view) {
+        SessionLog log = logs.get(storeKey(key));
+        if (log == null && Thread.currentThread() != writer) {
+            if (!Files.isDirectory(directoryFor(key))) {
+                return CompletableFuture.completedFuture(Collections.emptyList());
+            }
+            if (closed.get()) {
+                return failed(new IllegalStateException("Session store is closed"));
+            }
+            OpenOp op = new OpenOp(key);
+            queue.add(op);
+            if (closed.get() && !writer.isAlive() && queue.remove(op)) {
+                // Queued after close drained the queue
+                op.fail(new IllegalStateException("Session store is closed"));
+            }
+            // Off the writer thread, so callers' stages never stall it
+            return op.log.thenApplyAsync(opened -> view(opened, view));
+        }
+        try {
+            if (log == null) {
+                // Already on the writer thread
+                log = logFor(key, false);
+            }
+            return CompletableFuture.completedFuture(view(log, view));
+        } catch (UncheckedIOException e) {
+            return failed(e.getCause());
+        }
+    }
+
+    private static List<SessionStoreEntry> view(SessionLog log, Function<MappedEntryList, List<SessionStoreEntry>> view) {
+        return log == null ? Collections.emptyList() : view.apply(entriesOf(log));
+    }
+
+    /**
+     * Map the log's current segments. If the writer removes a segment file between reading the
+     * list and mapping it, the list has been replaced; retry with the new one.
+     */
+    private static MappedEntryList entriesOf(SessionLog log) {
+        while (true) {
+            List<SessionSegment> segments = log.segments;
+            try {
+                return new MappedEntryList(log.deleted ? Collections.emptyList() : segments);
+            } catch (UncheckedIOException e) {
+                if (log.segments == segments && !log.deleted) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * List sessions for a project, most recently appended first.
+     * <p>
+     * The first call for a project scans its directory; the result is kept as an index that
+     * the writer updates on every commit, so later calls do not touch the file system.
+     */
+    @Override
+    public CompletableFuture<List<SessionInfo>> listSessions(String projectKey) {
+        Map<String, Long> index;
+        try {
+            index = recency.computeIfAbsent(nonNull(projectKey), this::scanProject);
+        } catch (UncheckedIOException e) {
+            return failed(e.getCause());
+        }
+        List<SessionInfo> sessions = new ArrayList<>(index.size());
+        for (Map.Entry<String, Long> entry : index.entrySet()) {
+            sessions.add(new SessionInfo(entry.getKey(), entry.getValue()));
+        }
+        sessions.sort(BY_RECENCY);
+        return CompletableFuture.completedFuture(sessions);
+    }
+
+    /**
+     * Archive and drop the entries before the session's last compact boundary.
+     * <p>
+     * Runs on the writer thread after every append queued before it. The segment containing the
+     * boundary is rewritten from the boundary onwards; earlier segments are deleted.
+     */
+    @Override
+    public CompletableFuture<Long> compact(SessionKey key) {
+        if (closed.get()) {
+            return failed(new IllegalStateException("Session store is closed"));
+        }
+        CompactOp op = new CompactOp(key);
+        queue.add(op);
+        return op.removed;
+    }
+
+    /**
+     * Fork a session on the writer thread, after every append queued before it.
+     */
+    @Override
+    public CompletableFuture<Void> fork(SessionKey parentKey, long atEntry, SessionKey childKey) {
+        if (atEntry < 0) {
+            return SessionStore.super.fork(parentKey, atEntry, childKey);
+        }
+        if (closed.get()) {
+            return failed(new IllegalStateException("Session store is closed"));
+        }
+        ForkOp op = new ForkOp(parentKey, atEntry, childKey);
+        queue.add(op);
+        return op.future;
+    }
+
+    @Override
+    public CompletableFuture<List<SessionStoreEntry>> loadArchived(SessionKey key) {
+        Path dir = directoryFor(key);
+        List<Path> archives = new ArrayList<>();
+        if (Files.isDirectory(dir)) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, ARCHIVE_PREFIX + "*" + ARCHIVE_SUFFIX)) {
+                files.forEach(archives::add);
+            } catch (IOException e) {
+                return failed(e);
+            }
+        }
+        Collections.sort(archives);
+        List<SessionStoreEntry> entries = new ArrayList<>();
+        try {
+            for (Path archive : archives) {
+                entries.addAll(SessionArchive.read(Files.newInputStream(archive)));
+            }
+        } catch (IOException e) {
+            return failed(e);
+        }
+        return CompletableFuture.completedFuture(entries);
+    }
+
+    @Override
+    public CompletableFuture<Void> delete(SessionKey key) {
+        DeleteOp op = new DeleteOp(key, storeKey(key), directoryFor(key));
+        queue.add(op);
+        return op.future;
+    }
+
+    @Override
+    public CompletableFuture<List<String>> listSubkeys(SessionKey key) {
+        Path subDir = sessionDirectory(key).resolve(SUBKEY_DIR);
+        List<String> subkeys = new ArrayList<>();
+        if (!Files.isDirectory(subDir)) {
+            return CompletableFuture.completedFuture(subkeys);
+        }
+        try (DirectoryStream<Path> dirs = Files.newDirectoryStream(subDir, Files::isDirectory)) {
+            for (Path dir : dirs) {
+                subkeys.add(decode(dir.getFileName().toString()));
+            }
+            return CompletableFuture.completedFuture(subkeys);
+        } catch (IOException e) {
+            return failed(e);
+        }
+    }
+
+    /**
+     * Flush pending appends, stop the writer thread and close open segment files.
+     */
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        if (compressor != null) {
+            // Queued compressions see the store closed and return; a running one finishes and
+            // queues its install ahead of the shutdown
+            compressor.shutdown();
+            try {
+                compressor.awaitTermination(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        queue.add(new ShutdownOp());
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Operations that raced with close and landed behind the shutdown
+        List<WriteOp> stranded = new ArrayList<>();
+        queue.drainTo(stranded);
+        for (WriteOp op : stranded) {
+            op.fail(new IllegalStateException("Session store is closed"));
+        }
+        for (SessionLog log : logs.values()) {
+            log.closeQuietly();
+        }
+        logs.clear();
+    }
+
+    // --- Writer thread ---
+
+    private void writeLoop() {
+        List<WriteOp> batch = new ArrayList<>(maxBatchSize);
+        List<AppendOp> appends = new ArrayList<>(maxBatchSize);
+        Set<SessionLog> touched = new LinkedHashSet<>();
+        boolean running = true;
+        while (running) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                break;
+            }
+            queue.drainTo(batch, maxBatchSize - 1);
+            for (WriteOp op : batch) {
+                if (op instanceof AppendOp) {
+                    AppendOp append = (AppendOp) op;
+                    try {
+                        if (append.log == null || append.log.deleted) {
+                            // First access, or the session was deleted after this append picked up its log
+                            append.log = logFor(append.key, true);
+                        }
+                        append.log.write(append.lines);
+                        touched.add(append.log);
+                        appends.add(append);
+                    } catch (IOException | RuntimeException e) {
+                        append.future.completeExceptionally(e);
+                    }
+                    continue;
+                }
+                // Non-append ops are barriers: commit everything written before them first
+                commit(appends, touched);
+                if (op instanceof DeleteOp) {
+                    executeDelete((DeleteOp) op);
+                } else if (op instanceof CompactOp) {
+                    executeCompact((CompactOp) op);
+                } else if (op instanceof ForkOp) {
+                    executeFork((ForkOp) op);
+                } else if (op instanceof InstallOp) {
+                    executeInstall((InstallOp) op);
+                } else if (op instanceof OpenOp) {
+                    executeOpen((OpenOp) op);
+                } else if (op instanceof ShutdownOp) {
+                    running = false;
+                    op.future.complete(null);
+                }
+            }
+            commit(appends, touched);
+            batch.clear();
+        }
+    }
+
+    private void commit(List<AppendOp> appends, Set<SessionLog> touched) {
+        for (SessionLog log : touched) {
+            try {
+                log.sync(fsync);
+            } catch (IOException e) {
+                log.failed = e;
+            }
+            if (log.failed == null) {
+                scheduleCompression(log, log.sealed);
+            }
+            log.sealed.clear();
+        }
+        long now = System.currentTimeMillis();
+        for (AppendOp append : appends) {
+            if (append.log.failed != null) {
+                append.future.completeExceptionally(append.log.failed);
+            } else {
+                touch(append.key, now);
+                append.future.complete(null);
+            }
+        }
+        for (SessionLog log : touched) {
+            log.failed = null;
+        }
+        appends.clear();
+        touched.clear();
+    }
+
+    private void executeDelete(DeleteOp op) {
+        SessionLog log = logs.remove(op.storeKey);
+        if (log != null) {
+            log.deleted = true;
+            log.closeQuietly();
+        }
+        try {
+            if (Files.isDirectory(op.dir)) {
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(op.dir, Files::isRegularFile)) {
+                    for (Path file : files) {
+                        String name = file.getFileName().toString();
+                        if (name.endsWith(SEGMENT_SUFFIX) || name.endsWith(COMPRESSED_SUFFIX)
+                                || name.startsWith(ARCHIVE_PREFIX)) {
+                            Files.deleteIfExists(file);
+                        }
+                    }
+                }
+                try (DirectoryStream<Path> remaining = Files.newDirectoryStream(op.dir)) {
+                    if (!remaining.iterator().hasNext()) {
+                        Files.delete(op.dir);
+                    }
+                }
+            }
+            if (!Files.isDirectory(sessionDirectory(op.key))) {
+                recency.computeIfPresent(nonNull(op.key.projectKey()), (project, index) -> {
+                    index.remove(nonNull(op.key.sessionId()));
+                    return index;
+                });
+            }
+            op.future.complete(null);
+        } catch (IOException e) {
+            op.future.completeExceptionally(e);
+        }
+    }
+
+    private void executeOpen(OpenOp op) {
+        try {
+            op.log.complete(logFor(op.key, false));
+        } catch (UncheckedIOException e) {
+            op.log.completeExceptionally(e.getCause());
+        } catch (RuntimeException e) {
+            op.log.completeExceptionally(e);
+        }
+    }
+
+    private void executeCompact(CompactOp op) {
+        try {
+            op.removed.complete(compactLog(op.key));
+        } catch (IOException | RuntimeException e) {
+            op.removed.completeExceptionally(e);
+        }
+    }
+
+    private long compactLog(SessionKey key) throws IOException {
+        SessionLog log = logFor(key, false);
+        if (log == null) {
+            return 0;
+        }
+        List<SessionSegment> segments = log.segments;
+        MappedEntryList entries = new MappedEntryList(segments);
+        int boundary = entries.lastIndexMatching(BOUNDARY_MARKER, SessionStoreEntry::isCompactBoundary);
+        if (boundary <= 0) {
+            return 0;
+        }
+        if (archiveCompacted) {
+            Path archive = log.dir.resolve(String.format("%s%020d%s", ARCHIVE_PREFIX,
+                    segments.get(0).baseOffset, ARCHIVE_SUFFIX));
+            writeAtomically(archive, out -> {
+                try (GZIPOutputStream gzip = new GZIPOutputStream(out, 64 * 1024)) {
+                    entries.copyRaw(0, boundary, gzip);
+                }
+            });
+        }
+
+        int k = 0;
+        long start = 0;
+        while (start + segments.get(k).committedCount <= boundary) {
+            start += segments.get(k).committedCount;
+            k++;
+        }
+        SessionSegment head = segments.get(k);
+        int relative = (int) (boundary - start);
+        List<SessionSegment> retained = new ArrayList<>(segments.size() - k);
+        if (relative == 0) {
+            retained.add(head);
+        } else {
+            // Rewrite the boundary's segment from the boundary onwards under its new base offset
+            long base = head.baseOffset + relative;
+            Path path = log.dir.resolve(SessionLog.segmentName(base));
+            int end = (int) (start + head.committedCount);
+            writeAtomically(path, out -> entries.copyRaw(boundary, end, out));
+            if (k == segments.size() - 1) {
+                log.closeActive();
+            }
+            retained.add(SessionLog.recoverTail(base, path));
+        }
+        retained.addAll(segments.subList(k + 1, segments.size()));
+        log.segments = Collections.unmodifiableList(retained);
+        for (int i = 0; i <= k; i++) {
+            if (i < k || relative > 0) {
+                Files.deleteIfExists(segments.get(i).path);
+            }
+        }
+        return boundary;
+    }
+
+    private void executeFork(ForkOp op) {
+        try {
+            forkLog(op.parentKey, op.atEntry, op.childKey);
+            touch(op.childKey, System.currentTimeMillis());
+            op.future.complete(null);
+        } catch (IOException | RuntimeException e) {
+            op.future.completeExceptionally(e);
+        }
+    }
+
+    private void forkLog(SessionKey parentKey, long atEntry, SessionKey childKey) throws IOException {
+        SessionLog parent = logFor(parentKey, false);
+        List<SessionSegment> segments = parent != null ? parent.segments : Collections.emptyList();
+        long total = 0;
+        for (SessionSegment segment : segments) {
+            total += segment.committedCount;
+        }
+        if (atEntry > total) {
+            throw new IllegalArgumentException("Parent session has only " + total + " entries");
+        }
+        SessionLog child = logFor(childKey, false);
+        if (child != null) {
+            for (SessionSegment segment : child.segments) {
+                if (segment.committedCount > 0) {
+                    throw new IllegalStateException("Session already has entries: " + child.storeKey);
+                }
+            }
+            // Drop the empty log; appends that picked it up reopen the forked one
+            logs.remove(child.storeKey);
+            child.deleted = true;
+            child.closeQuietly();
+            for (SessionSegment segment : child.segments) {
+                Files.deleteIfExists(segment.path);
+            }
+        }
+        if (atEntry == 0) {
+            return;
+        }
+        Path dir = directoryFor(childKey);
+        Files.createDirectories(dir);
+        MappedEntryList entries = new MappedEntryList(segments);
+        long start = 0;
+        for (SessionSegment segment : segments) {
+            long end = start + segment.committedCount;
+            Path target = dir.resolve(segment.path.getFileName());
+            if (end < atEntry) {
+                // Sealed and wholly shared: never written again by either session
+                link(segment.path, target);
+            } else {
+                // The child appends to its last segment, so that one must be its own copy
+                int from = (int) start;
+                target = dir.resolve(SessionLog.segmentName(segment.baseOffset));
+                writeAtomically(target, out -> entries.copyRaw(from, (int) atEntry, out));
+                break;
+            }
+            start = end;
+        }
+    }
+
+    private static void link(Path source, Path target) throws IOException {
+        Files.deleteIfExists(target);
+        try {
+            Files.createLink(target, source);
+        } catch (UnsupportedOperationException | IOException e) {
+            logger.debug("Hard link unavailable for {}, copying", source, e);
+            Files.copy(source, target);
+        }
+    }
+
+    // --- Compression ---
+
+    private void scheduleCompression(SessionLog log, List<SessionSegment> sealed) {
+        if (compressor == null) {
+            return;
+        }
+        for (SessionSegment segment : sealed) {
+            if (segment.frames != null || segment.committedCount == 0) {
+                continue;
+            }
+            try {
+                compressor.execute(() -> compressSegment(log, segment));
+            } catch (RejectedExecutionException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Write the compressed form of a sealed segment and queue its installation. Compressor
+     * thread only.
+     */
+    private void compressSegment(SessionLog log, SessionSegment segment) {
+        if (log.deleted || closed.get() || isShared(segment.path)) {
+            return;
+        }
+        Path target = log.dir.resolve(String.format("%020d%s", segment.baseOffset, COMPRESSED_SUFFIX));
+        try {
+            int limit = Math.toIntExact(segment.committedBytes);
+            ByteBuffer buffer = segment.map(limit);
+            int id = dictionaries.forProject(log.projectDir, buffer, limit);
+            byte[] dictionary = id != 0 ? dictionaries.get(id) : null;
+            writeAtomically(target, out -> SegmentFrames.write(out, buffer, limit, segment.committedCount, id, dictionary));
+            SessionSegment compressed = new SessionSegment(segment.baseOffset, SegmentFrames.open(target, dictionaries::get));
+            queue.add(new InstallOp(log, segment, compressed));
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to compress session segment {}", segment.path, e);
+            try {
+                Files.deleteIfExists(target);
+            } catch (IOException ignored) {
+                // Left for the next open, which prefers a complete compressed file
+            }
+        }
+    }
+
+    /**
+     * Whether a segment is hard-linked into another session by {@link #fork}. Replacing it with a
+     * compressed copy would end the sharing and store the entries twice, so it is left as is
+     * until the other links are gone.
+     */
+    private static boolean isShared(Path segment) {
+        try {
+            Object links = Files.getAttribute(segment, "unix:nlink");
+            return links instanceof Integer && (Integer) links > 1;
+        } catch (UnsupportedOperationException | IllegalArgumentException | IOException e) {
+            // Without a link count, sharing cannot be detected
+            return false;
+        }
+    }
+
+    /**
+     * Swap a compressed segment in for its plain original, unless the log has since dropped it.
+     */
+    private void executeInstall(InstallOp op) {
+        List<SessionSegment> current = op.log.segments;
+        int index = -1;
+        for (int i = 0; i < current.size(); i++) {
+            if (current.get(i) == op.plain) {
+                index = i;
+                break;
+            }
+        }
+        try {
+            if (op.log.deleted || index < 0) {
+                Files.deleteIfExists(op.compressed.path);
+            } else {
+                List<SessionSegment> next = new ArrayList<>(current);
+                next.set(index, op.compressed);
+                op.log.segments = Collections.unmodifiableList(next);
+                // Readers that mapped the plain file keep their mapping
+                Files.deleteIfExists(op.plain.path);
+            }
+            op.future.complete(null);
+        } catch (IOException e) {
+            logger.debug("Failed to remove replaced session segment {}", op.plain.path, e);
+            op.future.complete(null);
+        }
+    }
+
+    /**
+     * Write a file through a temporary sibling, fsync it and move it into place.
+     */
+    private void writeAtomically(Path target, FileWriter writer) throws IOException {
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024);
+            writer.write(new FilterOutputStream(out) {
+                @Override
+                public void close() throws IOException {
+                    // Keep the channel open for force(); the outer try closes it
+                    flush();
+                }
+            });
+            out.flush();
+            if (fsync) {
+                channel.force(true);
+            }
+        }
+        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @FunctionalInterface
+    private interface FileWriter {
+        void write(OutputStream out) throws IOException;
+    }
+
+    // --- Recency index ---
+
+    /**
+     * Record an append in the project's index if it has been loaded. Runs under the index's
+     * map entry, so it cannot be lost to a concurrent first scan.
+     */
+    private void touch(SessionKey key, long now) {
+        recency.computeIfPresent(nonNull(key.projectKey()), (project, index) -> {
+            index.merge(nonNull(key.sessionId()), now, Math::max);
+            return index;
+        });
+    }
+
+    private ConcurrentHashMap<String, Long> scanProject(String projectKey) {
+        ConcurrentHashMap<String, Long> index = new ConcurrentHashMap<>();
+        Path projectDir = root.resolve(encode(projectKey));
+        if (!Files.isDirectory(projectDir)) {
+            return index;
+        }
+        try (DirectoryStream<Path> dirs = Files.newDirectoryStream(projectDir, Files::isDirectory)) {
+            for (Path sessionDir : dirs) {
+                index.put(decode(sessionDir.getFileName().toString()), lastModified(sessionDir));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to scan sessions in " + projectDir, e);
+        }
+        return index;
+    }
+
+    // --- Session logs ---
+
+    /**
+     * The session's log, opening (and recovering) it if needed. Writer thread only, so recovery
+     * never truncates a segment while it is being written.
+     */
+    private SessionLog logFor(SessionKey key, boolean create) {
+        String storeKey = storeKey(key);
+        SessionLog log = logs.get(storeKey);
+        if (log != null) {
+            return log;
+        }
+        Path dir = directoryFor(key);
+        if (!create && !Files.isDirectory(dir)) {
+            return null;
+        }
+        return openLog(storeKey, dir, root.resolve(encode(key.projectKey())));
+    }
+
+    private SessionLog openLog(String storeKey, Path dir, Path projectDir) {
+        return logs.computeIfAbsent(storeKey, k -> {
+            try {
+                SessionLog log = SessionLog.open(k, dir, projectDir, segmentMaxBytes, dictionaries::get);
+                // Sealed segments written before compression was enabled
+                List<SessionSegment> segments = log.segments;
+                scheduleCompression(log, segments.subList(0, Math.max(0, segments.size() - 1)));
+                return log;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to open session log " + dir, e);
+            }
+        });
+    }
+
+    private Path sessionDirectory(SessionKey key) {
+        return root.resolve(encode(key.projectKey())).resolve(encode(key.sessionId()));
+    }
+
+    private Path directoryFor(SessionKey key) {
+        Path sessionDir = sessionDirectory(key);
+        if (key.subpath() == null || key.subpath().isEmpty()) {
+            return sessionDir;
+        }
+        return sessionDir.resolve(SUBKEY_DIR).resolve(encode(key.subpath()));
+    }
+
+    private static long lastModified(Path sessionDir) throws IOException {
+        long mtime = Files.getLastModifiedTime(sessionDir).toMillis();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(sessionDir, FileSessionStore::isSegment)) {
+            for (Path file : files) {
+                mtime = Math.max(mtime, Files.getLastModifiedTime(file).toMillis());
+            }
+        }
+        return mtime;
+    }
+
+    static boolean isSegment(Path file) {
+        String name = file.getFileName().toString();
+        return name.endsWith(SEGMENT_SUFFIX) || name.endsWith(COMPRESSED_SUFFIX);
+    }
+
+    static String storeKey(SessionKey key) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(key.projectKey() != null ? key.projectKey() : "");
+        sb.append(":");
+        sb.append(key.sessionId() != null ? key.sessionId() : "");
+        if (key.subpath() != null && !key.subpath().isEmpty()) {
+            sb.append(":").append(key.subpath());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Encode a key component as a single, portable file name.
+     */
+    static String encode(String component) {
+        if (component == null || component.isEmpty()) {
+            return EMPTY_COMPONENT;
+        }
+        String encoded = URLEncoder.encode(component, StandardCharsets.UTF_8);
+        if (encoded.equals(".") || encoded.equals("..")) {
+            encoded = encoded.replace(".", "%2E");
+        }
+        return encoded;
+    }
+
+    static String decode(String fileName) {
+        if (EMPTY_COMPONENT.equals(fileName)) {
+            return "";
+        }
+        return URLDecoder.decode(fileName, StandardCharsets.UTF_8);
+    }
+
+    private static String nonNull(String value) {
+        return value != null ? value : "";
+    }
+
+    private static <T> CompletableFuture<T> failed(Throwable error) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(error);
+        return future;
+    }
+
+    /**
+     * Segment list and open channel for one session key.
+     */
+    static final class SessionLog {
+        final String storeKey;
+        final Path dir;
+        final Path projectDir;
+        private final long segmentMaxBytes;
+        volatile List<SessionSegment> segments;
+        // Sealed since the last commit; writer thread only
+        final List<SessionSegment> sealed = new ArrayList<>();
+        private FileChannel active;
+        private final List<FileChannel> pendingClose = new ArrayList<>();
+        IOException failed;
+        volatile boolean deleted;
+
+        private SessionLog(String storeKey, Path dir, Path projectDir, long segmentMaxBytes,
+                           List<SessionSegment> segments) {
+            this.storeKey = storeKey;
+            this.dir = dir;
+            this.projectDir = projectDir;
+            this.segmentMaxBytes = segmentMaxBytes;
+            this.segments = Collections.unmodifiableList(segments);
+        }
+
+        static SessionLog open(String storeKey, Path dir, Path projectDir, long segmentMaxBytes,
+                               IntFunction<byte[]> dictionaries) throws IOException {
+            Map<Long, Path> byBase = new TreeMap<>();
+            if (Files.isDirectory(dir)) {
+                try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, FileSessionStore::isSegment)) {
+                    for (Path file : stream) {
+                        long base = baseOffsetOf(file);
+                        Path other = byBase.get(base);
+                        if (other == null) {
+                            byBase.put(base, file);
+                            continue;
+                        }
+                        // Crashed between installing a compressed segment and removing the plain one
+                        boolean compressed = file.toString().endsWith(COMPRESSED_SUFFIX);
+                        byBase.put(base, compressed ? file : other);
+                        Files.deleteIfExists(compressed ? other : file);
+                    }
+                }
+            }
+            List<Path> files = new ArrayList<>(byBase.values());
+            List<SessionSegment> segments = new ArrayList<>(files.size());
+            for (int i = 0; i < files.size(); i++) {
+                Path file = files.get(i);
+                long base = baseOffsetOf(file);
+                if (file.toString().endsWith(COMPRESSED_SUFFIX)) {
+                    segments.add(new SessionSegment(base, SegmentFrames.open(file, dictionaries)));
+                } else if (i < files.size() - 1) {
+                    // Sealed segment: its entry count is implied by the next segment's base offset
+                    int count = Math.toIntExact(baseOffsetOf(files.get(i + 1)) - base);
+                    segments.add(new SessionSegment(base, file, Files.size(file), count, null));
+                } else {
+                    segments.add(recoverTail(base, file));
+                }
+            }
+            return new SessionLog(storeKey, dir, projectDir, segmentMaxBytes, segments);
+        }
+
+        /**
+         * Recover the last segment after an unclean shutdown.
+         * <p>
+         * Lines are delimited with a newline scan that also builds the sparse index; only trailing
+         * lines are parsed, walking back until one is valid, since a crash can only tear the end
+         * of the segment. Anything after the last valid line is truncated.
+         */
+        private static SessionSegment recoverTail(long base, Path file) throws IOException {
+            List<Integer> lineEnds = new ArrayList<>();
+            long size;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                size = channel.size();
+                if (size > Integer.MAX_VALUE) {
+                    throw new IOException("Session segment too large: " + file);
+                }
+                ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                for (int i = 0; i < size; i++) {
+                    if (buffer.get(i) == '\n') {
+                        lineEnds.add(i);
+                    }
+                }
+                while (!lineEnds.isEmpty()) {
+                    int last = lineEnds.size() - 1;
+                    int start = last == 0 ? 0 : lineEnds.get(last - 1) + 1;
+                    try {
+                        SessionEntryCodec.decode(buffer, start, lineEnds.get(last) - start);
+                        break;
+                    } catch (IOException e) {
+                        lineEnds.remove(last);
+                    }
+                }
+            }
+            int count = lineEnds.size();
+            int validEnd = count == 0 ? 0 : lineEnds.get(count - 1) + 1;
+            if (validEnd < size) {
+                logger.warn("Truncating {} trailing bytes of {}", size - validEnd, file);
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                    channel.truncate(validEnd);
+                    channel.force(true);
+                }
+            }
+            int interval = SessionSegment.INDEX_INTERVAL;
+            long[] index = new long[Math.max(8, (count + interval - 1) / interval)];
+            for (int entry = 0; entry < count; entry += interval) {
+                index[entry / interval] = entry == 0 ? 0 : lineEnds.get(entry - 1) + 1;
+            }
+            return new SessionSegment(base, file, validEnd, count, index);
+        }
+
+        static long baseOffsetOf(Path file) {
+            String name = file.getFileName().toString();
+            int suffix = name.endsWith(COMPRESSED_SUFFIX) ? COMPRESSED_SUFFIX.length() : SEGMENT_SUFFIX.length();
+            return Long.parseLong(name.substring(0, name.length() - suffix));
+        }
+
+        static String segmentName(long baseOffset) {
+            return String.format("%020d%s", baseOffset, SEGMENT_SUFFIX);
+        }
+
+        long nextOffset() {
+            List<SessionSegment> current = segments;
+            if (current.isEmpty()) {
+                return 0;
+            }
+            SessionSegment last = current.get(current.size() - 1);
+            return last.baseOffset + last.writtenCount;
+        }
+
+        /**
+         * Write lines to the active segment, rolling as needed. Writer thread only.
+         */
+        void write(List<byte[]> lines) throws IOException {
+            for (byte[] line : lines) {
+                SessionSegment segment = activeSegment(line.length);
+                segment.beforeWrite();
+                ByteBuffer buffer = ByteBuffer.wrap(line);
+                while (buffer.hasRemaining()) {
+                    active.write(buffer);
+                }
+                segment.writtenBytes += line.length;
+                segment.writtenCount++;
+            }
+        }
+
+        private SessionSegment activeSegment(int incoming) throws IOException {
+            List<SessionSegment> current = segments;
+            SessionSegment last = current.isEmpty() ? null : current.get(current.size() - 1);
+            if (last != null && last.frames != null) {
+                // Compressed segments are sealed; continue in a new one
+                last = null;
+            } else if (last != null && last.writtenCount > 0 && last.writtenBytes + incoming > segmentMaxBytes) {
+                // Seal the current segment; it is synced with the rest of the batch
+                if (active != null) {
+                    pendingClose.add(active);
+                    active = null;
+                }
+                sealed.add(last);
+                last = null;
+            }
+            if (last == null) {
+                Files.createDirectories(dir);
+                long base = nextOffset();
+                Path path = dir.resolve(segmentName(base));
+                active = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.APPEND);
+                last = new SessionSegment(base, path, 0, 0, new long[8]);
+                List<SessionSegment> next = new ArrayList<>(current);
+                next.add(last);
+                segments = Collections.unmodifiableList(next);
+            } else if (active == null) {
+                active = FileChannel.open(last.path, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            }
+            return last;
+        }
+
+        /**
+         * Sync written data and publish it to readers. Writer thread only.
+         */
+        void sync(boolean fsync) throws IOException {
+            try {
+                for (FileChannel channel : pendingClose) {
+                    if (fsync) {
+                        channel.force(false);
+                    }
+                    channel.close();
+                }
+                if (fsync && active != null) {
+                    active.force(false);
+                }
+            } finally {
+                pendingClose.clear();
+            }
+            List<SessionSegment> current = segments;
+            for (int i = current.size() - 1; i >= 0; i--) {
+                SessionSegment segment = current.get(i);
+                if (segment.committedBytes == segment.writtenBytes) {
+                    break;
+                }
+                segment.commit();
+            }
+        }
+
+        /**
+         * Close the active channel so the next write reopens the (replaced) last segment.
+         */
+        void closeActive() throws IOException {
+            if (active != null) {
+                active.close();
+                active = null;
+            }
+        }
+
+        void closeQuietly() {
+            try {
+                for (FileChannel channel : pendingClose) {
+                    channel.close();
+                }
+                if (active != null) {
+                    active.close();
+                }
+            } catch (IOException e) {
+                logger.debug("Failed to close session log {}", dir, e);
+            } finally {
+                pendingClose.clear();
+                active = null;
+            }
+        }
+    }
+
+    private abstract static class WriteOp {
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        void fail(Throwable error) {
+            future.completeExceptionally(error);
+        }
+    }
+
+    private static final class AppendOp extends WriteOp {
+        final SessionKey key;
+        SessionLog log;
+        final List<byte[]> lines;
+
+        AppendOp(SessionKey key, SessionLog log, List<byte[]> lines) {
+            this.key = key;
+            this.log = log;
+            this.lines = lines;
+        }
+    }
+
+    private static final class DeleteOp extends WriteOp {
+        final SessionKey key;
+        final String storeKey;
+        final Path dir;
+
+        DeleteOp(SessionKey key, String storeKey, Path dir) {
+            this.key = key;
+            this.storeKey = storeKey;
+            this.dir = dir;
+        }
+    }
+
+    private static final class CompactOp extends WriteOp {
+        final SessionKey key;
+        final CompletableFuture<Long> removed = new CompletableFuture<>();
+
+        CompactOp(SessionKey key) {
+            this.key = key;
+        }
+
+        @Override
+        void fail(Throwable error) {
+            super.fail(error);
+            removed.completeExceptionally(error);
+        }
+    }
+
+    private static final class OpenOp extends WriteOp {
+        final SessionKey key;
+        final CompletableFuture<SessionLog> log = new CompletableFuture<>();
+
+        OpenOp(SessionKey key) {
+            this.key = key;
+        }
+
+        @Override
+        void fail(Throwable error) {
+            super.fail(error);
+            log.completeExceptionally(error);
+        }
+    }
+
+    private static final class ForkOp extends WriteOp {
+        final SessionKey parentKey;
+        final long atEntry;
+        final SessionKey childKey;
+
+        ForkOp(SessionKey parentKey, long atEntry, SessionKey childKey) {
+            this.parentKey = parentKey;
+            this.atEntry = atEntry;
+            this.childKey = childKey;
+        }
+    }
+
+    private static final class InstallOp extends WriteOp {
+        final SessionLog log;
+        final SessionSegment plain;
+        final SessionSegment compressed;
+
+        InstallOp(SessionLog log, SessionSegment plain, SessionSegment compressed) {
+            this.log = log;
+            this.plain = plain;
+            this.compressed = compressed;
+        }
+    }
+
+    private static final class ShutdownOp extends WriteOp {
+    }
+
+    public static final class Builder {
+        private Path root;
+        private long segmentMaxBytes = 8L * 1024 * 1024;
+        private boolean fsync = true;
+        private int maxBatchSize = 4096;
+        private boolean archiveCompacted = true;
+        private boolean compactOnBoundary;
+        private boolean compressSealedSegments;
+
+        private Builder() {
+        }
+
+        /**
+         * Directory that holds all sessions.
+         */
+        public Builder root(Path root) {
+            this.root = root;
+            return this;
+        }
+
+        /**
+         * Size at which the active segment is sealed and a new one started.
+         */
+        public Builder segmentMaxBytes(long segmentMaxBytes) {
+            if (segmentMaxBytes <= 0 || segmentMaxBytes > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("segmentMaxBytes must be positive and fit a single mapping");
+            }
+            this.segmentMaxBytes = segmentMaxBytes;
+            return this;
+        }
+
+        /**
+         * Whether each group commit is fsynced before appends complete (default {@code true}).
+         */
+        public Builder fsync(boolean fsync) {
+            this.fsync = fsync;
+            return this;
+        }
+
+        /**
+         * Maximum number of queued operations written per group commit.
+         */
+        public Builder maxBatchSize(int maxBatchSize) {
+            if (maxBatchSize <= 0) {
+                throw new IllegalArgumentException("maxBatchSize must be positive");
+            }
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        /**
+         * Whether {@link FileSessionStore#compact(SessionKey)} keeps dropped entries in a gzip
+         * archive (default {@code true}) or discards them.
+         */
+        public Builder archiveCompacted(boolean archiveCompacted) {
+            this.archiveCompacted = archiveCompacted;
+            return this;
+        }
+
+        /**
+         * Compact a session automatically whenever a compact boundary entry is appended to it.
+         */
+        public Builder compactOnBoundary(boolean compactOnBoundary) {
+            this.compactOnBoundary = compactOnBoundary;
+            return this;
+        }
+
+        /**
+         * Compress segments in the background once they are sealed (default {@code false}).
+         */
+        public Builder compressSealedSegments(boolean compressSealedSegments) {
+            this.compressSealedSegments = compressSealedSegments;
+            return this;
+        }
+
+        public FileSessionStore build() {
+            return new FileSessionStore(this);
+        }
+    }
+}
@@ -1,20 +1,35 @@
 package com.anthropic.claude.sdk.session;
 
+import java.io.IOException;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * In-memory implementation of {@link SessionStore}, backed by a {@link ConcurrentHashMap}.
  * Suitable for testing and short-lived processes.
+ * <p>
+ * Each session is a chunked append-only log: appends are O(1) amortized and never copy earlier
+ * entries, and {@link #load(SessionKey)} returns a snapshot view without copying.
+ * <p>
+ * A per-project index tracks each session's last append time and subkeys, so
+ * {@link #listSessions} and {@link #listSubkeys} only touch the sessions they return.
+ * <p>
+ * {@link #fork} shares the parent's entries with the child instead of copying them: the child
+ * keeps a view of the parent's prefix in front of its own log, so a branch costs memory only
+ * for the entries appended to it.
  */
 public final class InMemorySessionStore implements SessionStore {
 
-    private final ConcurrentHashMap<String, List<SessionStoreEntry>> store = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Slot> store = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, SessionMeta>> projects = new ConcurrentHashMap<>();
 
     private static String toStoreKey(SessionKey key) {
         StringBuilder sb = new StringBuilder();
@@ -29,56 +44,370 @@ public final class InMemorySessionStore implements SessionStore {
 
     @Override
     public CompletableFuture<Void> append(SessionKey key, List<SessionStoreEntry> entries) {
+        if (entries == null || entries.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
         String storeKey = toStoreKey(key);
-        store.compute(storeKey, (k, existing) -> {
-            List<SessionStoreEntry> list = existing != null ? new ArrayList<>(existing) : new ArrayList<>();
-            list.addAll(entries);
-            return list;
-        });
-        return CompletableFuture.completedFuture(null);
+        while (true) {
+            // Re-read the slot each attempt: a sealed log means a compaction or fork is about to
+            // publish a replacement branch, or a delete is removing the slot
+            Slot slot = store.get(storeKey);
+            if (slot == null) {
+                slot = store.computeIfAbsent(storeKey, k -> new Slot(register(key)));
+            }
+            if (slot.branch.log.append(entries)) {
+                slot.meta.mtime = System.currentTimeMillis();
+                return CompletableFuture.completedFuture(null);
+            }
+            Thread.onSpinWait();
+        }
     }
 
     @Override
     public CompletableFuture<List<SessionStoreEntry>> load(SessionKey key) {
         String storeKey = toStoreKey(key);
-        List<SessionStoreEntry> entries = store.get(storeKey);
-        if (entries == null) {
+        Slot slot = store.get(storeKey);
+        if (slot == null) {
             return CompletableFuture.completedFuture(Collections.emptyList());
         }
-        return CompletableFuture.completedFuture(Collections.unmodifiableList(new ArrayList<>(entries)));
+        return CompletableFuture.completedFuture(slot.branch.snapshot());
+    }
+
+    @Override
+    public CompletableFuture<List<SessionStoreEntry>> load(SessionKey key, long fromOffset, int limit) {
+        if (fromOffset < 0 || limit < 0) {
+            return SessionStore.super.load(key, fromOffset, limit);
+        }
+        Slot slot = store.get(toStoreKey(key));
+        if (slot == null) {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+        return CompletableFuture.completedFuture(slot.branch.snapshot(fromOffset, limit));
+    }
+
+    @Override
+    public CompletableFuture<List<SessionStoreEntry>> loadTail(SessionKey key, int n) {
+        if (n < 0) {
+            return SessionStore.super.loadTail(key, n);
+        }
+        Slot slot = store.get(toStoreKey(key));
+        if (slot == null) {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+        Branch branch = slot.branch;
+        int size = branch.size();
+        return CompletableFuture.completedFuture(branch.snapshot(Math.max(0, size - n), n));
+    }
+
+    /**
+     * Move the entries before the last compact boundary into a gzip-compressed archive.
+     * <p>
+     * The log is sealed, the post-boundary entries are copied into a fresh log and the fresh
+     * log is swapped in; appends that race with the swap wait for it and then land in the new
+     * log. Compaction costs O(post-boundary entries) plus compressing the archived prefix.
+     * <p>
+     * Every replacement of a slot's branch (compaction, fork, delete) happens with the slot
+     * locked and seals the old log first, so no append can land in a log that is dropped.
+     */
+    @Override
+    public CompletableFuture<Long> compact(SessionKey key) {
+        Slot slot = store.get(toStoreKey(key));
+        if (slot == null) {
+            return CompletableFuture.completedFuture(0L);
+        }
+        synchronized (slot) {
+            if (slot.deleted) {
+                return CompletableFuture.completedFuture(0L);
+            }
+            Branch branch = slot.branch;
+            List<SessionStoreEntry> current = branch.snapshot();
+            int boundary = -1;
+            for (int i = current.size() - 1; i > 0; i--) {
+                if (current.get(i).isCompactBoundary()) {
+                    boundary = i;
+                    break;
+                }
+            }
+            if (boundary <= 0) {
+                return CompletableFuture.completedFuture(0L);
+            }
+            byte[] member;
+            try {
+                member = SessionArchive.member(current.subList(0, boundary));
+            } catch (IOException e) {
+                return failed(e);
+            }
+            int shared = branch.prefix.size();
+            Branch next;
+            if (boundary < shared) {
+                // The boundary lies in a forked prefix: only the view needs trimming
+                next = new Branch(branch.prefix.subList(boundary, shared), branch.log);
+            } else {
+                int size = branch.log.seal();
+                ChunkedEntryLog log = new ChunkedEntryLog();
+                log.append(branch.log.snapshot().subList(boundary - shared, size));
+                next = new Branch(Collections.emptyList(), log);
+            }
+            slot.archive.add(member);
+            slot.branch = next;
+            return CompletableFuture.completedFuture((long) boundary);
+        }
     }
 
+    /**
+     * Fork a session in O(1): the child shares the parent's first {@code atEntry} entries.
+     * Later appends, compaction or deletion of the parent do not affect the child.
+     */
+    @Override
+    public CompletableFuture<Void> fork(SessionKey parentKey, long atEntry, SessionKey childKey) {
+        if (atEntry < 0) {
+            return SessionStore.super.fork(parentKey, atEntry, childKey);
+        }
+        Slot parent = store.get(toStoreKey(parentKey));
+        List<SessionStoreEntry> prefix;
+        if (parent == null) {
+            prefix = Collections.emptyList();
+        } else {
+            Branch branch = parent.branch;
+            int shared = branch.prefix.size();
+            // Reuse the parent's own prefix view when possible so nested forks stay shallow
+            prefix = atEntry <= shared ? branch.prefix : branch.snapshot();
+        }
+        if (atEntry > prefix.size()) {
+            return failed(new IllegalArgumentException("Parent session has only " + prefix.size() + " entries"));
+        }
+        Branch forked = new Branch(prefix.subList(0, (int) atEntry), new ChunkedEntryLog());
+        try {
+            store.compute(toStoreKey(childKey), (k, existing) -> {
+                if (existing == null) {
+                    Slot slot = new Slot(register(childKey));
+                    slot.branch = forked;
+                    return slot;
+                }
+                synchronized (existing) {
+                    Branch branch = existing.branch;
+                    // Seal first so a racing append cannot land in the log being replaced
+                    int size = branch.log.seal();
+                    if (size > 0 || !branch.prefix.isEmpty()) {
+                        ChunkedEntryLog reopened = new ChunkedEntryLog();
+                        reopened.append(branch.log.snapshot());
+                        existing.branch = new Branch(branch.prefix, reopened);
+                        throw new IllegalStateException("Session already has entries: " + k);
+                    }
+                    existing.branch = forked;
+                }
+                return existing;
+            });
+        } catch (IllegalStateException e) {
+            return failed(e);
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public CompletableFuture<List<SessionStoreEntry>> loadArchived(SessionKey key) {
+        Slot slot = store.get(toStoreKey(key));
+        if (slot == null) {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+        try {
+            return CompletableFuture.completedFuture(SessionArchive.read(slot.archive));
+        } catch (IOException e) {
+            return failed(e);
+        }
+    }
+
+    /**
+     * List sessions for a project, most recently appended first.
+     */
     @Override
     public CompletableFuture<List<SessionInfo>> listSessions(String projectKey) {
-        String prefix = (projectKey != null ? projectKey : "") + ":";
-        List<SessionInfo> sessions = store.entrySet().stream()
-                .filter(e -> e.getKey().startsWith(prefix))
-                .map(e -> {
-                    String remaining = e.getKey().substring(prefix.length());
-                    String sessionId = remaining.contains(":")
-                            ? remaining.substring(0, remaining.indexOf(':'))
-                            : remaining;
-                    return new SessionInfo(sessionId, System.currentTimeMillis());
-                })
-                .distinct()
-                .collect(Collectors.toList());
-        return CompletableFuture.completedFuture(sessions);
+        return CompletableFuture.completedFuture(sessionsByRecency(projectKey));
+    }
+
+    @Override
+    public CompletableFuture<List<SessionInfo>> listSessions(String projectKey, int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            return SessionStore.super.listSessions(projectKey, offset, limit);
+        }
+        List<SessionInfo> sessions = sessionsByRecency(projectKey);
+        int from = Math.min(offset, sessions.size());
+        int to = (int) Math.min(sessions.size(), (long) from + limit);
+        return CompletableFuture.completedFuture(new ArrayList<>(sessions.subList(from, to)));
     }
 
     @Override
     public CompletableFuture<Void> delete(SessionKey key) {
-        String storeKey = toStoreKey(key);
-        store.remove(storeKey);
+        boolean[] removed = new boolean[1];
+        store.computeIfPresent(toStoreKey(key), (k, slot) -> {
+            synchronized (slot) {
+                // Appends that still hold this slot see the sealed log, retry and start afresh
+                slot.deleted = true;
+                slot.branch.log.seal();
+            }
+            removed[0] = true;
+            return null;
+        });
+        if (removed[0]) {
+            unregister(key);
+        }
         return CompletableFuture.completedFuture(null);
     }
 
     @Override
     public CompletableFuture<List<String>> listSubkeys(SessionKey key) {
-        String prefix = toStoreKey(key) + ":";
-        List<String> subkeys = store.keySet().stream()
-                .filter(k -> k.startsWith(prefix))
-                .map(k -> k.substring(prefix.length()))
-                .collect(Collectors.toList());
+        ConcurrentHashMap<String, SessionMeta> sessions = projects.get(nonNull(key.projectKey()));
+        SessionMeta meta = sessions != null ? sessions.get(nonNull(key.sessionId())) : null;
+        if (meta == null) {
+            return CompletableFuture.completedFuture(new ArrayList<>());
+        }
+        List<String> subkeys = new ArrayList<>();
+        String prefix = key.subpath() == null || key.subpath().isEmpty() ? "" : key.subpath() + ":";
+        for (String subkey : meta.subkeys) {
+            if (subkey.startsWith(prefix) && subkey.length() > prefix.length()) {
+                subkeys.add(subkey.substring(prefix.length()));
+            }
+        }
         return CompletableFuture.completedFuture(subkeys);
     }
+
+    private List<SessionInfo> sessionsByRecency(String projectKey) {
+        ConcurrentHashMap<String, SessionMeta> sessions = projects.get(nonNull(projectKey));
+        if (sessions == null) {
+            return new ArrayList<>();
+        }
+        List<SessionInfo> result = new ArrayList<>(sessions.size());
+        for (Map.Entry<String, SessionMeta> entry : sessions.entrySet()) {
+            result.add(new SessionInfo(entry.getKey(), entry.getValue().mtime));
+        }
+        result.sort(SessionStore.BY_RECENCY);
+        return result;
+    }
+
+    /**
+     * Index a newly created log under its project and session.
+     */
+    private SessionMeta register(SessionKey key) {
+        boolean sub = key.subpath() != null && !key.subpath().isEmpty();
+        return projects.computeIfAbsent(nonNull(key.projectKey()), p -> new ConcurrentHashMap<>())
+                .compute(nonNull(key.sessionId()), (id, meta) -> {
+                    SessionMeta target = meta != null ? meta : new SessionMeta();
+                    if (sub) {
+                        target.subkeys.add(key.subpath());
+                    } else {
+                        target.hasMain = true;
+                    }
+                    return target;
+                });
+    }
+
+    private void unregister(SessionKey key) {
+        ConcurrentHashMap<String, SessionMeta> sessions = projects.get(nonNull(key.projectKey()));
+        if (sessions == null) {
+            return;
+        }
+        boolean sub = key.subpath() != null && !key.subpath().isEmpty();
+        sessions.computeIfPresent(nonNull(key.sessionId()), (id, meta) -> {
+            if (sub) {
+                meta.subkeys.remove(key.subpath());
+            } else {
+                meta.hasMain = false;
+            }
+            return meta.hasMain || !meta.subkeys.isEmpty() ? meta : null;
+        });
+    }
+
+    private static String nonNull(String value) {
+        return value != null ? value : "";
+    }
+
+    private static <T> CompletableFuture<T> failed(Throwable error) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(error);
+        return future;
+    }
+
+    private static final class Slot {
+        volatile Branch branch = new Branch(Collections.emptyList(), new ChunkedEntryLog());
+        final List<byte[]> archive = new CopyOnWriteArrayList<>();
+        final SessionMeta meta;
+        // Guarded by this
+        boolean deleted;
+
+        Slot(SessionMeta meta) {
+            this.meta = meta;
+        }
+    }
+
+    /**
+     * A session's entries: a shared, immutable prefix (non-empty only for forks) followed by
+     * the session's own log. Replaced as a whole so readers never see a mismatched pair.
+     */
+    private static final class Branch {
+        final List<SessionStoreEntry> prefix;
+        final ChunkedEntryLog log;
+
+        Branch(List<SessionStoreEntry> prefix, ChunkedEntryLog log) {
+            this.prefix = prefix;
+            this.log = log;
+        }
+
+        int size() {
+            return prefix.size() + log.size();
+        }
+
+        List<SessionStoreEntry> snapshot() {
+            if (prefix.isEmpty()) {
+                return log.snapshot();
+            }
+            return new ForkedList(prefix, log.snapshot());
+        }
+
+        List<SessionStoreEntry> snapshot(long from, int limit) {
+            if (prefix.isEmpty()) {
+                return log.snapshot(from, limit);
+            }
+            List<SessionStoreEntry> all = snapshot();
+            int size = all.size();
+            if (from >= size || limit == 0) {
+                return Collections.emptyList();
+            }
+            return all.subList((int) from, (int) Math.min(size, from + limit));
+        }
+    }
+
+    /**
+     * Read-only concatenation of a forked prefix and the child's own entries.
+     */
+    private static final class ForkedList extends AbstractList<SessionStoreEntry> implements RandomAccess {
+        private final List<SessionStoreEntry> head;
+        private final List<SessionStoreEntry> tail;
+        private final int headSize;
+
+        ForkedList(List<SessionStoreEntry> head, List<SessionStoreEntry> tail) {
+            this.head = head;
+            this.tail = tail;
+            this.headSize = head.size();
+        }
+
+        @Override
+        public SessionStoreEntry get(int index) {
+            return index < headSize ? head.get(index) : tail.get(index - headSize);
+        }
+
+        @Override
+        public int size() {
+            return headSize + tail.size();
+        }
+    }
+
+    /**
+     * Index entry for one session: last append time across its main log and subkeys.
+     */
+    private static final class SessionMeta {
+        // subkeys and hasMain change only inside compute on the project's session map
+        final Set<String> subkeys = ConcurrentHashMap.newKeySet();
+        boolean hasMain;
+        volatile long mtime = System.currentTimeMillis();
+    }
 }
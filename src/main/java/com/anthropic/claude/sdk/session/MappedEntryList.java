@@ -0,0 +1,344 @@
+package com.anthropic.claude.sdk.session;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.function.Predicate;
+
+/**
+ * Read-only view over the committed entries of a set of segments, captured at load time.
+ * <p>
+ * Every segment is mapped when the list is created, and the list keeps those mappings, so it
+ * stays readable after the store deletes, compacts or replaces the files behind it.
+ * <p>
+ * No entry is parsed up front. {@link #get(int)} finds the segment by binary search over segment
+ * start offsets, seeks through the segment's sparse index and parses only the requested line
+ * from the memory-mapped file. Iteration walks the mapped bytes sequentially.
+ * <p>
+ * Compressed segments are read a frame at a time: the frame holding the entry is inflated (or
+ * taken from the segment's frame cache) and its lines are walked like a mapped segment's.
+ */
+final class MappedEntryList extends AbstractList<SessionStoreEntry> implements RandomAccess {
+
+    private final SessionSegment[] segments;
+    private final int[] counts;
+    private final int[] limits;
+    private final long[] starts;
+    private final ByteBuffer[] buffers;
+    private final int from;
+    private final int size;
+
+    /**
+     * @throws UncheckedIOException if a segment file cannot be mapped, e.g. because it has been
+     *                              removed since the snapshot was taken
+     */
+    MappedEntryList(List<SessionSegment> snapshot) {
+        int n = snapshot.size();
+        this.segments = snapshot.toArray(new SessionSegment[0]);
+        this.counts = new int[n];
+        this.limits = new int[n];
+        this.starts = new long[n];
+        this.buffers = new ByteBuffer[n];
+        long total = 0;
+        for (int i = 0; i < n; i++) {
+            // Count before bytes: see SessionSegment
+            counts[i] = segments[i].committedCount;
+            limits[i] = Math.toIntExact(segments[i].committedBytes);
+            starts[i] = total;
+            total += counts[i];
+        }
+        for (int i = 0; i < n; i++) {
+            pin(i);
+        }
+        this.from = 0;
+        this.size = Math.toIntExact(total);
+    }
+
+    private MappedEntryList(MappedEntryList parent, int from, int size) {
+        this.segments = parent.segments;
+        this.counts = parent.counts;
+        this.limits = parent.limits;
+        this.starts = parent.starts;
+        this.buffers = parent.buffers;
+        this.from = from;
+        this.size = size;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public SessionStoreEntry get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        int global = from + index;
+        int s = segmentOf(global);
+        int relative = (int) (global - starts[s]);
+        SegmentFrames frames = segments[s].frames;
+        if (frames != null) {
+            int frame = frames.frameOf(relative);
+            ByteBuffer buffer = frame(frames, frame);
+            int pos = skipLines(buffer, 0, relative - frames.firstEntry(frame));
+            return decode(buffer, pos, SessionSegment.lineEnd(buffer, pos, buffer.limit()));
+        }
+        ByteBuffer buffer = buffer(s);
+        int pos = segments[s].positionOf(buffer, relative, limits[s]);
+        return decode(buffer, pos, SessionSegment.lineEnd(buffer, pos, limits[s]));
+    }
+
+    /**
+     * Range view sharing this list's mappings; creating it costs nothing and its iterator
+     * seeks once.
+     */
+    @Override
+    public List<SessionStoreEntry> subList(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex > size || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException("fromIndex: " + fromIndex + ", toIndex: " + toIndex + ", size: " + size);
+        }
+        return new MappedEntryList(this, from + fromIndex, toIndex - fromIndex);
+    }
+
+    /**
+     * Sequential iterator that seeks once and then walks the mapped bytes (or inflated frames).
+     */
+    @Override
+    public Iterator<SessionStoreEntry> iterator() {
+        int end = from + size;
+        return new Iterator<SessionStoreEntry>() {
+            private int next = from;
+            private int segment = -1;
+            private int frame;
+            private ByteBuffer buffer;
+            private int limit;
+            private int remaining;
+            private int pos;
+
+            @Override
+            public boolean hasNext() {
+                return next < end;
+            }
+
+            @Override
+            public SessionStoreEntry next() {
+                if (next >= end) {
+                    throw new NoSuchElementException();
+                }
+                if (segment < 0) {
+                    seek();
+                }
+                while (remaining == 0) {
+                    advance();
+                }
+                int lineEnd = SessionSegment.lineEnd(buffer, pos, limit);
+                SessionStoreEntry entry = decode(buffer, pos, lineEnd);
+                pos = lineEnd + 1;
+                remaining--;
+                next++;
+                return entry;
+            }
+
+            private void seek() {
+                segment = segmentOf(next);
+                int relative = (int) (next - starts[segment]);
+                SegmentFrames frames = segments[segment].frames;
+                if (frames != null) {
+                    openFrame(frames, frames.frameOf(relative));
+                    int skip = relative - frames.firstEntry(frame);
+                    pos = skipLines(buffer, 0, skip);
+                    remaining -= skip;
+                } else {
+                    buffer = buffer(segment);
+                    limit = limits[segment];
+                    remaining = counts[segment] - relative;
+                    pos = segments[segment].positionOf(buffer, relative, limit);
+                }
+            }
+
+            private void advance() {
+                SegmentFrames frames = segments[segment].frames;
+                if (frames != null && frame + 1 < frames.frameCount()) {
+                    openFrame(frames, frame + 1);
+                    return;
+                }
+                segment++;
+                frames = segments[segment].frames;
+                if (frames != null) {
+                    openFrame(frames, 0);
+                } else {
+                    buffer = counts[segment] > 0 ? buffer(segment) : null;
+                    limit = limits[segment];
+                    remaining = counts[segment];
+                    pos = 0;
+                }
+            }
+
+            private void openFrame(SegmentFrames frames, int index) {
+                frame = index;
+                buffer = frame(frames, index);
+                limit = buffer.limit();
+                remaining = frames.entriesIn(index);
+                pos = 0;
+            }
+        };
+    }
+
+    /**
+     * Index of the last entry whose raw line contains {@code marker} and that satisfies
+     * {@code test}, or -1. Lines without the marker are skipped without being parsed, and the
+     * scan stops at the last segment containing a match.
+     */
+    int lastIndexMatching(byte[] marker, Predicate<SessionStoreEntry> test) {
+        for (int s = segments.length - 1; s >= 0; s--) {
+            if (counts[s] == 0 || starts[s] >= from + size) {
+                continue;
+            }
+            int found = -1;
+            SegmentFrames frames = segments[s].frames;
+            int blocks = frames != null ? frames.frameCount() : 1;
+            for (int b = 0; b < blocks; b++) {
+                ByteBuffer buffer = frames != null ? frame(frames, b) : buffer(s);
+                int limit = frames != null ? buffer.limit() : limits[s];
+                int first = frames != null ? frames.firstEntry(b) : 0;
+                int entries = frames != null ? frames.entriesIn(b) : counts[s];
+                int pos = 0;
+                for (int i = 0; i < entries; i++) {
+                    int end = SessionSegment.lineEnd(buffer, pos, limit);
+                    int global = (int) starts[s] + first + i;
+                    if (global >= from && global < from + size && contains(buffer, pos, end, marker)
+                            && test.test(decode(buffer, pos, end))) {
+                        found = global - from;
+                    }
+                    pos = end + 1;
+                }
+            }
+            if (found >= 0) {
+                return found;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Copy the raw JSONL lines of {@code [fromIndex, toIndex)} to {@code out} without parsing them.
+     */
+    void copyRaw(int fromIndex, int toIndex, OutputStream out) throws IOException {
+        byte[] chunk = new byte[64 * 1024];
+        int index = from + fromIndex;
+        int end = from + toIndex;
+        while (index < end) {
+            int s = segmentOf(index);
+            int relative = (int) (index - starts[s]);
+            int last = (int) Math.min(counts[s], end - starts[s]);
+            SegmentFrames frames = segments[s].frames;
+            if (frames != null) {
+                copyFrames(frames, relative, last, out);
+                index = (int) starts[s] + last;
+                continue;
+            }
+            ByteBuffer buffer = buffer(s);
+            int startPos = segments[s].positionOf(buffer, relative, limits[s]);
+            int endPos = last == counts[s] ? limits[s]
+                    : segments[s].positionOf(buffer, last, limits[s]);
+            ByteBuffer view = buffer.duplicate();
+            view.position(startPos);
+            int remaining = endPos - startPos;
+            while (remaining > 0) {
+                int n = Math.min(chunk.length, remaining);
+                view.get(chunk, 0, n);
+                out.write(chunk, 0, n);
+                remaining -= n;
+            }
+            index = (int) starts[s] + last;
+        }
+    }
+
+    private void copyFrames(SegmentFrames frames, int relative, int last, OutputStream out) throws IOException {
+        while (relative < last) {
+            int frame = frames.frameOf(relative);
+            ByteBuffer buffer = frame(frames, frame);
+            int first = frames.firstEntry(frame);
+            int frameEnd = Math.min(last, first + frames.entriesIn(frame));
+            int startPos = skipLines(buffer, 0, relative - first);
+            int endPos = skipLines(buffer, startPos, frameEnd - relative);
+            byte[] bytes = new byte[endPos - startPos];
+            buffer.duplicate().position(startPos).get(bytes);
+            out.write(bytes);
+            relative = frameEnd;
+        }
+    }
+
+    private static int skipLines(ByteBuffer buffer, int pos, int lines) {
+        for (int i = 0; i < lines; i++) {
+            pos = SessionSegment.lineEnd(buffer, pos, buffer.limit()) + 1;
+        }
+        return pos;
+    }
+
+    private static ByteBuffer frame(SegmentFrames frames, int frame) {
+        try {
+            return frames.frame(frame);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read compressed session segment " + frames.path, e);
+        }
+    }
+
+    private static boolean contains(ByteBuffer buffer, int start, int end, byte[] marker) {
+        outer:
+        for (int i = start; i <= end - marker.length; i++) {
+            for (int j = 0; j < marker.length; j++) {
+                if (buffer.get(i + j) != marker[j]) {
+                    continue outer;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private int segmentOf(int index) {
+        int s = Arrays.binarySearch(starts, index);
+        if (s < 0) {
+            s = -s - 2;
+        }
+        // Skip empty segments that share a start offset with their successor
+        while (index - starts[s] >= counts[s]) {
+            s++;
+        }
+        return s;
+    }
+
+    private void pin(int s) {
+        try {
+            SegmentFrames frames = segments[s].frames;
+            if (frames != null) {
+                frames.pin();
+            } else if (counts[s] > 0) {
+                buffers[s] = segments[s].map(limits[s]);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to map session segment " + segments[s].path, e);
+        }
+    }
+
+    private ByteBuffer buffer(int s) {
+        return buffers[s];
+    }
+
+    private static SessionStoreEntry decode(ByteBuffer buffer, int start, int end) {
+        try {
+            return SessionEntryCodec.decode(buffer, start, end - start);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Corrupt session entry at byte " + start, e);
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package com.anthropic.claude.sdk.session;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compressed form of a sealed segment: its JSONL lines split into frames that are each a raw
+ * DEFLATE stream primed with the project's preset dictionary, so any frame can be inflated on
+ * its own.
+ * <p>
+ * A frame holds at most {@link #FRAME_ENTRIES} entries and is closed early once it reaches
+ * {@link #FRAME_BYTES} uncompressed bytes, so reading one entry inflates a bounded amount.
+ * File layout (big-endian):
+ * <pre>
+ *   magic "CSF1" | dictionary id | entry count | frame count          (4 ints)
+ *   per frame: file offset (long) | compressed length | raw length | first entry  (20 bytes)
+ *   frames
+ * </pre>
+ * Dictionary id 0 means no dictionary.
+ */
+final class SegmentFrames {
+
+    static final int FRAME_ENTRIES = SessionSegment.INDEX_INTERVAL;
+    static final int FRAME_BYTES = 64 * 1024;
+
+    private static final int MAGIC = 0x43534631;
+    private static final int HEADER_BYTES = 16;
+    private static final int TABLE_ENTRY_BYTES = 20;
+    private static final int CACHED_FRAMES = 4;
+
+    final Path path;
+    private final int dictionaryId;
+    private final int count;
+    private final long[] offsets;
+    private final int[] compressedLengths;
+    private final int[] rawLengths;
+    private final int[] firstEntries;
+    private final long rawBytes;
+    private final IntFunction<byte[]> dictionaries;
+
+    // Guarded by this
+    private ByteBuffer mapped;
+    private final Map<Integer, ByteBuffer> cache = new LinkedHashMap<Integer, ByteBuffer>(8, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, ByteBuffer> eldest) {
+            return size() > CACHED_FRAMES;
+        }
+    };
+
+    private SegmentFrames(Path path, int dictionaryId, int count, long[] offsets, int[] compressedLengths,
+                          int[] rawLengths, int[] firstEntries, IntFunction<byte[]> dictionaries) {
+        this.path = path;
+        this.dictionaryId = dictionaryId;
+        this.count = count;
+        this.offsets = offsets;
+        this.compressedLengths = compressedLengths;
+        this.rawLengths = rawLengths;
+        this.firstEntries = firstEntries;
+        this.dictionaries = dictionaries;
+        long raw = 0;
+        for (int length : rawLengths) {
+            raw += length;
+        }
+        this.rawBytes = raw;
+    }
+
+    /**
+     * Compress the first {@code count} lines of {@code source} into the frame format.
+     */
+    static void write(OutputStream out, ByteBuffer source, int limit, int count, int dictionaryId,
+                      byte[] dictionary) throws IOException {
+        List<byte[]> frames = new ArrayList<>();
+        List<int[]> shapes = new ArrayList<>();
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+        try {
+            byte[] input = new byte[FRAME_BYTES];
+            byte[] output = new byte[FRAME_BYTES];
+            int pos = 0;
+            int entry = 0;
+            while (entry < count) {
+                int first = entry;
+                int start = pos;
+                while (entry < count && entry - first < FRAME_ENTRIES && pos - start < FRAME_BYTES) {
+                    pos = SessionSegment.lineEnd(source, pos, limit) + 1;
+                    entry++;
+                }
+                int raw = pos - start;
+                if (input.length < raw) {
+                    input = new byte[raw];
+                }
+                source.duplicate().position(start).get(input, 0, raw);
+                deflater.reset();
+                if (dictionary != null) {
+                    deflater.setDictionary(dictionary);
+                }
+                deflater.setInput(input, 0, raw);
+                deflater.finish();
+                ByteArrayOutputStream frame = new ByteArrayOutputStream(raw / 4 + 64);
+                while (!deflater.finished()) {
+                    frame.write(output, 0, deflater.deflate(output));
+                }
+                frames.add(frame.toByteArray());
+                shapes.add(new int[]{raw, first});
+            }
+        } finally {
+            deflater.end();
+        }
+
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(dictionaryId);
+        data.writeInt(count);
+        data.writeInt(frames.size());
+        long offset = HEADER_BYTES + (long) TABLE_ENTRY_BYTES * frames.size();
+        for (int i = 0; i < frames.size(); i++) {
+            data.writeLong(offset);
+            data.writeInt(frames.get(i).length);
+            data.writeInt(shapes.get(i)[0]);
+            data.writeInt(shapes.get(i)[1]);
+            offset += frames.get(i).length;
+        }
+        for (byte[] frame : frames) {
+            data.write(frame);
+        }
+        data.flush();
+    }
+
+    /**
+     * Read a compressed segment's header and frame table.
+     *
+     * @param dictionaries resolves a dictionary id to its bytes on first inflate
+     */
+    static SegmentFrames open(Path path, IntFunction<byte[]> dictionaries) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = read(channel, 0, HEADER_BYTES);
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a compressed session segment: " + path);
+            }
+            int dictionaryId = header.getInt();
+            int count = header.getInt();
+            int frameCount = header.getInt();
+            ByteBuffer table = read(channel, HEADER_BYTES, TABLE_ENTRY_BYTES * frameCount);
+            long[] offsets = new long[frameCount];
+            int[] compressed = new int[frameCount];
+            int[] raw = new int[frameCount];
+            int[] first = new int[frameCount];
+            for (int i = 0; i < frameCount; i++) {
+                offsets[i] = table.getLong();
+                compressed[i] = table.getInt();
+                raw[i] = table.getInt();
+                first[i] = table.getInt();
+            }
+            return new SegmentFrames(path, dictionaryId, count, offsets, compressed, raw, first, dictionaries);
+        }
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Truncated compressed session segment");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    int count() {
+        return count;
+    }
+
+    long rawBytes() {
+        return rawBytes;
+    }
+
+    int frameCount() {
+        return offsets.length;
+    }
+
+    /**
+     * Frame holding entry {@code entry} (0-based within the segment).
+     */
+    int frameOf(int entry) {
+        int frame = Arrays.binarySearch(firstEntries, entry);
+        return frame >= 0 ? frame : -frame - 2;
+    }
+
+    int firstEntry(int frame) {
+        return firstEntries[frame];
+    }
+
+    int entriesIn(int frame) {
+        int end = frame + 1 < firstEntries.length ? firstEntries[frame + 1] : count;
+        return end - firstEntries[frame];
+    }
+
+    /**
+     * Map the file now, so frames stay readable once it is deleted.
+     */
+    synchronized void pin() throws IOException {
+        if (mapped == null) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+        }
+    }
+
+    /**
+     * The uncompressed lines of one frame. Recently used frames are cached; the returned buffer
+     * must only be read with absolute gets.
+     */
+    synchronized ByteBuffer frame(int frame) throws IOException {
+        ByteBuffer cached = cache.get(frame);
+        if (cached != null) {
+            return cached;
+        }
+        pin();
+        byte[] input = new byte[compressedLengths[frame]];
+        mapped.duplicate().position((int) offsets[frame]).get(input);
+        byte[] output = new byte[rawLengths[frame]];
+        Inflater inflater = new Inflater(true);
+        try {
+            if (dictionaryId != 0) {
+                inflater.setDictionary(dictionaries.apply(dictionaryId));
+            }
+            inflater.setInput(input);
+            int filled = 0;
+            while (filled < output.length) {
+                int n = inflater.inflate(output, filled, output.length - filled);
+                if (n == 0 && (inflater.finished() || inflater.needsInput())) {
+                    throw new IOException("Truncated frame " + frame + " in " + path);
+                }
+                filled += n;
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt frame " + frame + " in " + path, e);
+        } finally {
+            inflater.end();
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(output);
+        cache.put(frame, buffer);
+        return buffer;
+    }
+}
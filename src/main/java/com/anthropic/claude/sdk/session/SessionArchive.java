@@ -0,0 +1,63 @@
+package com.anthropic.claude.sdk.session;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cold archive format for compacted session entries: concatenated gzip members, each holding
+ * the JSONL lines removed by one compaction. New members are appended without rewriting
+ * earlier ones, and {@link GZIPInputStream} reads the members back as one stream.
+ */
+final class SessionArchive {
+
+    private SessionArchive() {
+    }
+
+    /**
+     * Read every entry of an archive stream.
+     */
+    static List<SessionStoreEntry> read(InputStream in) throws IOException {
+        List<SessionStoreEntry> entries = new ArrayList<>();
+        try (InputStream gzip = new GZIPInputStream(in, 64 * 1024)) {
+            byte[] bytes = gzip.readAllBytes();
+            int start = 0;
+            for (int i = 0; i < bytes.length; i++) {
+                if (bytes[i] == '\n') {
+                    entries.add(SessionEntryCodec.decode(bytes, start, i - start));
+                    start = i + 1;
+                }
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Read every entry of a sequence of in-memory archive members.
+     */
+    static List<SessionStoreEntry> read(List<byte[]> members) throws IOException {
+        List<SessionStoreEntry> entries = new ArrayList<>();
+        for (byte[] member : members) {
+            entries.addAll(read(new ByteArrayInputStream(member)));
+        }
+        return entries;
+    }
+
+    /**
+     * Compress entries into a single archive member.
+     */
+    static byte[] member(List<SessionStoreEntry> entries) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            for (SessionStoreEntry entry : entries) {
+                gzip.write(SessionEntryCodec.encode(entry));
+            }
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,156 @@
+package com.anthropic.claude.sdk.session;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * Preset DEFLATE dictionaries for compressed segments, trained once per project.
+ * <p>
+ * Dictionaries are immutable and stored by content id under {@code <root>/=dictionaries/}, so a
+ * segment stays readable wherever it is linked to (forks may cross projects). Each project
+ * records the id of its dictionary in {@code <root>/<project>/=dictionary}. Names starting with
+ * {@code =} cannot collide with encoded project or session names.
+ */
+final class SessionDictionaries {
+
+    static final int MAX_DICTIONARY_BYTES = 32 * 1024;
+    private static final int MAX_SAMPLE_BYTES = 4 * 1024 * 1024;
+    private static final int MIN_FRAGMENT = 4;
+    private static final int MAX_FRAGMENT = 256;
+    private static final String DIRECTORY = "=dictionaries";
+    private static final String PROJECT_POINTER = "=dictionary";
+
+    private final Path root;
+    private final ConcurrentHashMap<Integer, byte[]> byId = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Path, Integer> byProject = new ConcurrentHashMap<>();
+
+    SessionDictionaries(Path root) {
+        this.root = root;
+    }
+
+    /**
+     * Dictionary bytes for an id found in a segment header.
+     */
+    byte[] get(int id) {
+        return byId.computeIfAbsent(id, key -> {
+            try {
+                return Files.readAllBytes(root.resolve(DIRECTORY).resolve(fileName(key)));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Missing session dictionary " + fileName(key), e);
+            }
+        });
+    }
+
+    /**
+     * Id of the project's dictionary, training one from {@code sample} on first use.
+     * Returns 0 when the sample yields no useful dictionary. Not thread-safe; called from the
+     * store's single compressor thread.
+     */
+    int forProject(Path projectDir, ByteBuffer sample, int limit) throws IOException {
+        Integer known = byProject.get(projectDir);
+        if (known != null) {
+            return known;
+        }
+        Path pointer = projectDir.resolve(PROJECT_POINTER);
+        int id;
+        if (Files.exists(pointer)) {
+            id = Integer.parseUnsignedInt(new String(Files.readAllBytes(pointer), StandardCharsets.US_ASCII).trim(), 16);
+        } else {
+            byte[] dictionary = train(sample, limit);
+            id = dictionary.length == 0 ? 0 : idOf(dictionary);
+            if (id != 0) {
+                Path file = root.resolve(DIRECTORY).resolve(fileName(id));
+                if (!Files.exists(file)) {
+                    writeAtomically(file, dictionary);
+                }
+                byId.put(id, dictionary);
+            }
+            writeAtomically(pointer, fileName(id).getBytes(StandardCharsets.US_ASCII));
+        }
+        byProject.put(projectDir, id);
+        return id;
+    }
+
+    /**
+     * Build a dictionary from the JSON fragments that repeat most in the sample.
+     * <p>
+     * The sample is cut at JSON delimiters, so candidates are keys, short values and their
+     * combinations ({@code "type":"tool_result",}). Fragments are scored by the bytes they would
+     * save (occurrences × length) and the best are packed into the dictionary, most valuable last,
+     * since DEFLATE encodes nearer matches more cheaply.
+     */
+    static byte[] train(ByteBuffer sample, int limit) {
+        int end = Math.min(limit, MAX_SAMPLE_BYTES);
+        Map<String, Integer> counts = new HashMap<>();
+        int start = 0;
+        for (int i = 0; i < end; i++) {
+            byte b = sample.get(i);
+            if (b != ',' && b != '{' && b != '[' && b != '}' && b != ']' && b != '\n') {
+                continue;
+            }
+            int length = i + 1 - start;
+            if (length >= MIN_FRAGMENT && length <= MAX_FRAGMENT) {
+                byte[] fragment = new byte[length];
+                sample.duplicate().position(start).get(fragment);
+                // ISO-8859-1 maps bytes to chars one-to-one
+                counts.merge(new String(fragment, StandardCharsets.ISO_8859_1), 1, Integer::sum);
+            }
+            start = i + 1;
+        }
+        List<Map.Entry<String, Integer>> candidates = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            if (entry.getValue() > 1) {
+                candidates.add(entry);
+            }
+        }
+        candidates.sort((a, b) -> Long.compare(score(b), score(a)));
+        List<String> chosen = new ArrayList<>();
+        int size = 0;
+        for (Map.Entry<String, Integer> candidate : candidates) {
+            int length = candidate.getKey().length();
+            if (size + length > MAX_DICTIONARY_BYTES) {
+                continue;
+            }
+            chosen.add(candidate.getKey());
+            size += length;
+        }
+        StringBuilder dictionary = new StringBuilder(size);
+        for (int i = chosen.size() - 1; i >= 0; i--) {
+            dictionary.append(chosen.get(i));
+        }
+        return dictionary.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    private static long score(Map.Entry<String, Integer> fragment) {
+        return (long) (fragment.getValue() - 1) * fragment.getKey().length();
+    }
+
+    private static int idOf(byte[] dictionary) {
+        CRC32 crc = new CRC32();
+        crc.update(dictionary);
+        int id = (int) crc.getValue();
+        return id != 0 ? id : 1;
+    }
+
+    private static String fileName(int id) {
+        return String.format("%08x", id);
+    }
+
+    private static void writeAtomically(Path target, byte[] bytes) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        Files.write(tmp, bytes);
+        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
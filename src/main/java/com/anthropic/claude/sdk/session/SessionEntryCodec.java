@@ -0,0 +1,66 @@
+package com.anthropic.claude.sdk.session;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+/**
+ * JSONL encoding of {@link SessionStoreEntry} used by the file-backed stores.
+ * <p>
+ * Each entry is one line: {@code {"type":...,"data":{...}}\n}.
+ */
+final class SessionEntryCodec {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final ObjectReader MAP_READER = MAPPER.readerFor(new TypeReference<Map<String, Object>>() {
+    });
+
+    private SessionEntryCodec() {
+    }
+
+    /**
+     * Encode an entry as a newline-terminated UTF-8 line.
+     */
+    static byte[] encode(SessionStoreEntry entry) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        try (JsonGenerator generator = MAPPER.getFactory().createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeStringField("type", entry.type());
+            generator.writeFieldName("data");
+            generator.writeObject(entry.data());
+            generator.writeEndObject();
+        }
+        out.write('\n');
+        return out.toByteArray();
+    }
+
+    /**
+     * Decode one line (without its trailing newline).
+     */
+    @SuppressWarnings("unchecked")
+    static SessionStoreEntry decode(byte[] buffer, int offset, int length) throws IOException {
+        Map<String, Object> line = MAP_READER.readValue(buffer, offset, length);
+        Object data = line.get("data");
+        return new SessionStoreEntry(
+                (String) line.get("type"),
+                data instanceof Map ? (Map<String, Object>) data : null
+        );
+    }
+
+    /**
+     * Decode one line held at {@code [position, position + length)} of a (mapped) buffer.
+     */
+    static SessionStoreEntry decode(ByteBuffer buffer, int position, int length) throws IOException {
+        byte[] line = new byte[length];
+        ByteBuffer view = buffer.duplicate();
+        view.position(position);
+        view.get(line);
+        return decode(line, 0, length);
+    }
+}
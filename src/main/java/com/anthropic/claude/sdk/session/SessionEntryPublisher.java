@@ -0,0 +1,155 @@
+package com.anthropic.claude.sdk.session;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link Flow.Publisher} that pages through a session as subscribers signal demand.
+ * <p>
+ * Each subscription holds at most one page. Delivery runs in a drain loop on whichever thread
+ * signalled demand or completed the page load, never re-entrantly.
+ */
+final class SessionEntryPublisher implements Flow.Publisher<SessionStoreEntry> {
+
+    static final int DEFAULT_PAGE_SIZE = 256;
+
+    /**
+     * Loads up to {@code limit} entries starting at {@code offset}.
+     */
+    @FunctionalInterface
+    interface PageLoader {
+        CompletableFuture<List<SessionStoreEntry>> load(long offset, int limit);
+    }
+
+    private final PageLoader loader;
+    private final long fromOffset;
+    private final int pageSize;
+
+    SessionEntryPublisher(PageLoader loader, long fromOffset, int pageSize) {
+        this.loader = loader;
+        this.fromOffset = fromOffset;
+        this.pageSize = pageSize;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super SessionStoreEntry> subscriber) {
+        PagingSubscription subscription = new PagingSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+        subscription.drain();
+    }
+
+    private final class PagingSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super SessionStoreEntry> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+
+        // Guarded by the drain loop
+        private long nextOffset = fromOffset;
+        private Iterator<SessionStoreEntry> page;
+        private boolean lastPage;
+        private boolean loading;
+        private volatile List<SessionStoreEntry> loaded;
+        private volatile Throwable error;
+        private volatile boolean cancelled;
+
+        PagingSubscription(Flow.Subscriber<? super SessionStoreEntry> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                error = new IllegalArgumentException("Demand must be positive: " + n);
+            } else {
+                demand.getAndAccumulate(n, (current, add) -> current + add < 0 ? Long.MAX_VALUE : current + add);
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+
+        void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            while (true) {
+                if (!step()) {
+                    return;
+                }
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Deliver as much as demand and the current page allow.
+         *
+         * @return false once the subscription is terminated
+         */
+        private boolean step() {
+            while (true) {
+                if (cancelled) {
+                    return false;
+                }
+                if (error != null) {
+                    cancelled = true;
+                    subscriber.onError(error);
+                    return false;
+                }
+                if (loading) {
+                    List<SessionStoreEntry> entries = loaded;
+                    if (entries == null) {
+                        return true;
+                    }
+                    loaded = null;
+                    loading = false;
+                    page = entries.iterator();
+                    lastPage = entries.size() < pageSize;
+                    nextOffset += entries.size();
+                }
+                if (page != null && page.hasNext()) {
+                    if (demand.get() == 0) {
+                        return true;
+                    }
+                    demand.decrementAndGet();
+                    subscriber.onNext(page.next());
+                    continue;
+                }
+                if (lastPage) {
+                    cancelled = true;
+                    subscriber.onComplete();
+                    return false;
+                }
+                if (demand.get() == 0) {
+                    return true;
+                }
+                loading = true;
+                CompletableFuture<List<SessionStoreEntry>> next;
+                try {
+                    next = loader.load(nextOffset, pageSize);
+                } catch (RuntimeException e) {
+                    error = e;
+                    continue;
+                }
+                next.whenComplete((entries, failure) -> {
+                    if (failure != null) {
+                        error = failure;
+                    } else {
+                        loaded = entries;
+                    }
+                    drain();
+                });
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.anthropic.claude.sdk.session;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * One segment file of a {@link FileSessionStore} session log.
+ * <p>
+ * Only the store's writer thread appends to a segment. Readers see the committed prefix:
+ * the writer publishes {@code committedBytes} before {@code committedCount}, so a reader that
+ * reads the count first never sees more entries than mapped bytes.
+ * <p>
+ * A sparse index records the byte position of every {@link #INDEX_INTERVAL}th entry. The writer
+ * maintains it as it appends; segments opened from disk build it on first read with a
+ * newline scan over the mapped file, without parsing any JSON.
+ * <p>
+ * A sealed segment may be replaced by its compressed form, in which case {@link #frames} is set
+ * and entries are read from inflated frames instead of a mapping.
+ */
+final class SessionSegment {
+
+    static final int INDEX_INTERVAL = 64;
+
+    final long baseOffset;
+    final Path path;
+    final SegmentFrames frames;
+
+    // Writer thread only
+    long writtenBytes;
+    int writtenCount;
+
+    volatile long committedBytes;
+    volatile int committedCount;
+
+    private volatile long[] index;
+    private int indexSize;
+
+    private MappedByteBuffer mapped;
+
+    SessionSegment(long baseOffset, Path path, long bytes, int count, long[] index) {
+        this(baseOffset, path, bytes, count, index, null);
+    }
+
+    /**
+     * A sealed, compressed segment.
+     */
+    SessionSegment(long baseOffset, SegmentFrames frames) {
+        this(baseOffset, frames.path, frames.rawBytes(), frames.count(), null, frames);
+    }
+
+    private SessionSegment(long baseOffset, Path path, long bytes, int count, long[] index, SegmentFrames frames) {
+        this.baseOffset = baseOffset;
+        this.path = path;
+        this.frames = frames;
+        this.writtenBytes = bytes;
+        this.writtenCount = count;
+        this.committedBytes = bytes;
+        this.committedCount = count;
+        this.index = index;
+        this.indexSize = index != null ? (count + INDEX_INTERVAL - 1) / INDEX_INTERVAL : 0;
+    }
+
+    /**
+     * Record the position of the entry about to be written. Writer thread only.
+     */
+    void beforeWrite() {
+        if (writtenCount % INDEX_INTERVAL != 0) {
+            return;
+        }
+        long[] current = index;
+        if (indexSize == current.length) {
+            current = Arrays.copyOf(current, Math.max(8, current.length * 2));
+        }
+        current[indexSize++] = writtenBytes;
+        index = current;
+    }
+
+    /**
+     * Publish everything written so far to readers. Writer thread only.
+     */
+    void commit() {
+        committedBytes = writtenBytes;
+        committedCount = writtenCount;
+    }
+
+    /**
+     * Map at least {@code limit} bytes of the segment. The mapping is shared and only
+     * replaced when the segment has grown past it.
+     */
+    synchronized ByteBuffer map(long limit) throws IOException {
+        if (mapped == null || mapped.capacity() < limit) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, limit);
+            }
+        }
+        return mapped;
+    }
+
+    /**
+     * Byte position of entry {@code relative} (0-based within this segment).
+     */
+    int positionOf(ByteBuffer buffer, int relative, int limit) {
+        long[] idx = indexFor(buffer, limit);
+        int pos = (int) idx[relative / INDEX_INTERVAL];
+        for (int skip = relative % INDEX_INTERVAL; skip > 0; skip--) {
+            pos = lineEnd(buffer, pos, limit) + 1;
+        }
+        return pos;
+    }
+
+    private long[] indexFor(ByteBuffer buffer, int limit) {
+        long[] idx = index;
+        if (idx != null) {
+            return idx;
+        }
+        synchronized (this) {
+            if (index == null) {
+                index = scanIndex(buffer, limit);
+            }
+            return index;
+        }
+    }
+
+    private static long[] scanIndex(ByteBuffer buffer, int limit) {
+        long[] idx = new long[16];
+        int size = 0;
+        int entry = 0;
+        int start = 0;
+        for (int i = 0; i < limit; i++) {
+            if (buffer.get(i) != '\n') {
+                continue;
+            }
+            if (entry % INDEX_INTERVAL == 0) {
+                if (size == idx.length) {
+                    idx = Arrays.copyOf(idx, size * 2);
+                }
+                idx[size++] = start;
+            }
+            entry++;
+            start = i + 1;
+        }
+        return Arrays.copyOf(idx, size);
+    }
+
+    /**
+     * Position of the newline that ends the line starting at {@code pos}.
+     */
+    static int lineEnd(ByteBuffer buffer, int pos, int limit) {
+        for (int i = pos; i < limit; i++) {
+            if (buffer.get(i) == '\n') {
+                return i;
+            }
+        }
+        throw new IllegalStateException("Unterminated session entry at byte " + pos);
+    }
+}
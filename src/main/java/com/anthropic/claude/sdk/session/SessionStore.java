@@ -1,14 +1,23 @@
 package com.anthropic.claude.sdk.session;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
 
 /**
  * Interface for persisting and loading session data.
  */
 public interface SessionStore {
 
+    /**
+     * Orders sessions most recently modified first, then by session id.
+     */
+    Comparator<SessionInfo> BY_RECENCY = Comparator.comparingLong(SessionInfo::mtime).reversed()
+            .thenComparing(SessionInfo::sessionId, Comparator.nullsFirst(Comparator.naturalOrder()));
+
     /**
      * Append entries to a session.
      *
@@ -26,6 +35,110 @@ public interface SessionStore {
      */
     CompletableFuture<List<SessionStoreEntry>> load(SessionKey key);
 
+    /**
+     * Load a page of entries for a session.
+     * <p>
+     * The default implementation slices the list returned by {@link #load(SessionKey)}, which
+     * is cheap for stores whose {@code load} returns a view; other stores should override it.
+     *
+     * @param key        the session key
+     * @param fromOffset position of the first entry to return (0-based)
+     * @param limit      maximum number of entries to return
+     * @return a future with at most {@code limit} entries starting at {@code fromOffset}
+     */
+    default CompletableFuture<List<SessionStoreEntry>> load(SessionKey key, long fromOffset, int limit) {
+        checkRange(fromOffset, limit);
+        return load(key).thenApply(entries -> page(entries, fromOffset, limit));
+    }
+
+    /**
+     * Load the last {@code n} entries of a session.
+     *
+     * @param key the session key
+     * @param n   maximum number of entries to return
+     * @return a future with the session's last {@code n} entries, oldest first
+     */
+    default CompletableFuture<List<SessionStoreEntry>> loadTail(SessionKey key, int n) {
+        checkRange(0, n);
+        return load(key).thenApply(entries -> page(entries, Math.max(0, entries.size() - n), n));
+    }
+
+    /**
+     * Stream the entries of a session, honouring subscriber demand.
+     *
+     * @param key the session key
+     * @return a publisher of the session's entries, oldest first
+     */
+    default Flow.Publisher<SessionStoreEntry> stream(SessionKey key) {
+        return stream(key, 0);
+    }
+
+    /**
+     * Stream the entries of a session starting at {@code fromOffset}.
+     * <p>
+     * The default implementation fetches pages with {@link #load(SessionKey, long, int)} as demand
+     * arrives, so only one page is held in memory per subscriber. The stream completes at the
+     * first short page, which includes entries appended while it was running.
+     *
+     * @param key        the session key
+     * @param fromOffset position of the first entry to publish (0-based)
+     * @return a publisher of the session's entries
+     */
+    default Flow.Publisher<SessionStoreEntry> stream(SessionKey key, long fromOffset) {
+        checkRange(fromOffset, 0);
+        return new SessionEntryPublisher((offset, limit) -> load(key, offset, limit), fromOffset,
+                SessionEntryPublisher.DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * Remove the entries before a session's last compact boundary from its live log.
+     * <p>
+     * After the CLI compacts a conversation, resuming only needs the
+     * {@linkplain SessionStoreEntry#isCompactBoundary() boundary} entry and what follows it.
+     * Stores that support compaction move earlier entries to a compressed archive, so
+     * {@link #load(SessionKey)} costs only the post-boundary entries. The default does nothing.
+     *
+     * @param key the session key
+     * @return a future with the number of entries removed from the live log
+     */
+    default CompletableFuture<Long> compact(SessionKey key) {
+        return CompletableFuture.completedFuture(0L);
+    }
+
+    /**
+     * Load the entries that {@link #compact(SessionKey)} moved to the archive, oldest first.
+     *
+     * @param key the session key
+     * @return a future with the archived entries
+     */
+    default CompletableFuture<List<SessionStoreEntry>> loadArchived(SessionKey key) {
+        return CompletableFuture.completedFuture(Collections.emptyList());
+    }
+
+    /**
+     * Start a new session whose history is the first {@code atEntry} entries of another.
+     * <p>
+     * Used to persist a branched conversation ({@code forkSession}, {@code resumeSessionAt})
+     * without storing the parent's history twice: stores that support it share the parent's
+     * prefix structurally and store only the child's own entries. The default implementation
+     * copies the prefix with {@link #append}.
+     *
+     * @param parentKey the session to branch from
+     * @param atEntry   number of parent entries the child starts with
+     * @param childKey  the new session, which must not have entries yet
+     * @return a future that completes when the child can be appended to
+     */
+    default CompletableFuture<Void> fork(SessionKey parentKey, long atEntry, SessionKey childKey) {
+        checkRange(atEntry, 0);
+        int count = (int) Math.min(atEntry, Integer.MAX_VALUE);
+        return load(parentKey, 0, count).thenCompose(prefix -> {
+            if (prefix.size() < atEntry) {
+                throw new IllegalArgumentException("Parent session has only " + prefix.size() + " entries");
+            }
+            return append(childKey, prefix);
+        });
+    }
+
     /**
      * List all sessions for a given project key.
      *
@@ -36,6 +149,25 @@ public interface SessionStore {
         return CompletableFuture.completedFuture(Collections.emptyList());
     }
 
+    /**
+     * List one page of a project's sessions, most recently modified first.
+     * <p>
+     * The default implementation sorts the result of {@link #listSessions(String)}.
+     *
+     * @param projectKey the project key
+     * @param offset     number of sessions to skip
+     * @param limit      maximum number of sessions to return
+     * @return a future with at most {@code limit} sessions
+     */
+    default CompletableFuture<List<SessionInfo>> listSessions(String projectKey, int offset, int limit) {
+        checkRange(offset, limit);
+        return listSessions(projectKey).thenApply(sessions -> {
+            List<SessionInfo> sorted = new ArrayList<>(sessions);
+            sorted.sort(BY_RECENCY);
+            return page(sorted, offset, limit);
+        });
+    }
+
     /**
      * Delete a session.
      *
@@ -55,4 +187,25 @@ public interface SessionStore {
     default CompletableFuture<List<String>> listSubkeys(SessionKey key) {
         return CompletableFuture.completedFuture(Collections.emptyList());
     }
+
+    /**
+     * Return the {@code [fromOffset, fromOffset + limit)} slice of a list, clamped to its size.
+     */
+    private static <T> List<T> page(List<T> entries, long fromOffset, int limit) {
+        int size = entries.size();
+        if (fromOffset >= size || limit == 0) {
+            return Collections.emptyList();
+        }
+        int from = (int) fromOffset;
+        return entries.subList(from, (int) Math.min(size, (long) from + limit));
+    }
+
+    private static void checkRange(long fromOffset, int limit) {
+        if (fromOffset < 0) {
+            throw new IllegalArgumentException("fromOffset must not be negative: " + fromOffset);
+        }
+        if (limit < 0) {
+            throw new IllegalArgumentException("limit must not be negative: " + limit);
+        }
+    }
 }
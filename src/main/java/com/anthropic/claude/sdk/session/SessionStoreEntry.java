@@ -22,4 +22,12 @@ public final class SessionStoreEntry {
     public Map<String, Object> data() {
         return data;
     }
+
+    /**
+     * Whether this entry is a mirrored {@code compact_boundary} system message, after which
+     * the CLI no longer needs earlier entries to resume the session.
+     */
+    public boolean isCompactBoundary() {
+        return "system".equals(type) && data != null && "compact_boundary".equals(data.get("subtype"));
+    }
 }
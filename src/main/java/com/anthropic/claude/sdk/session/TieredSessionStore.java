@@ -0,0 +1,599 @@
+package com.anthropic.claude.sdk.session;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * {@link SessionStore} that keeps recently used sessions in a fast hot tier in front of a durable
+ * cold tier.
+ * <p>
+ * A session becomes resident in the hot tier when it is read (read promotion): the whole session
+ * is loaded from the cold tier once and later reads are served from the hot tier. Residents are
+ * evicted least recently used first once either {@link Builder#maxSessions(int)} or
+ * {@link Builder#maxEntries(long)} is exceeded.
+ * <p>
+ * In {@link WriteMode#WRITE_THROUGH} mode an append completes once the cold tier has it and is
+ * mirrored into the hot tier when the session is resident. In {@link WriteMode#WRITE_BACK} mode
+ * appends go to the hot tier only and are written to the cold tier in batches: when a session
+ * has {@link Builder#maxDirtyEntries(int)} unwritten entries, when it is evicted, and on
+ * {@link #flush()} or {@link #close()}.
+ * <p>
+ * Operations on the same session key run one after another in submission order; operations on
+ * different keys run concurrently. Neither tier is closed by {@link #close()}.
+ */
+public final class TieredSessionStore implements SessionStore, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(TieredSessionStore.class);
+    private static final CompletableFuture<Void> DONE = CompletableFuture.completedFuture(null);
+
+    /**
+     * When appended entries reach the cold tier.
+     */
+    public enum WriteMode {
+        /** Appends complete once the cold tier has persisted them. */
+        WRITE_THROUGH,
+        /** Appends complete once the hot tier has them; the cold tier is written in batches. */
+        WRITE_BACK
+    }
+
+    private final SessionStore hot;
+    private final SessionStore cold;
+    private final WriteMode writeMode;
+    private final int maxSessions;
+    private final long maxEntries;
+    private final int maxDirtyEntries;
+    private final Executor executor;
+
+    // Guarded by itself; access-ordered so iteration starts at the least recently used session
+    private final LinkedHashMap<String, Resident> residents = new LinkedHashMap<>(16, 0.75f, true);
+    private long residentEntries;
+    private int evicting;
+    private final ConcurrentHashMap<String, CompletableFuture<Void>> lanes = new ConcurrentHashMap<>();
+
+    private final LongAdder hotHits = new LongAdder();
+    private final LongAdder coldHits = new LongAdder();
+    private final LongAdder promotions = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder writeBacks = new LongAdder();
+
+    private TieredSessionStore(Builder builder) {
+        this.hot = builder.hot != null ? builder.hot : new InMemorySessionStore();
+        this.cold = Objects.requireNonNull(builder.cold, "cold tier is required");
+        this.writeMode = builder.writeMode;
+        this.maxSessions = builder.maxSessions;
+        this.maxEntries = builder.maxEntries;
+        this.maxDirtyEntries = builder.maxDirtyEntries;
+        this.executor = builder.executor != null ? builder.executor : ForkJoinPool.commonPool();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public SessionStore getHotTier() {
+        return hot;
+    }
+
+    public SessionStore getColdTier() {
+        return cold;
+    }
+
+    public WriteMode getWriteMode() {
+        return writeMode;
+    }
+
+    @Override
+    public CompletableFuture<Void> append(SessionKey key, List<SessionStoreEntry> entries) {
+        if (entries == null || entries.isEmpty()) {
+            return DONE;
+        }
+        List<SessionStoreEntry> batch = new ArrayList<>(entries);
+        String storeKey = toStoreKey(key);
+        if (writeMode == WriteMode.WRITE_THROUGH) {
+            return serially(storeKey, () -> cold.append(key, batch).thenCompose(v -> {
+                Resident resident = resident(storeKey);
+                return resident != null ? appendHot(resident, batch) : DONE;
+            }));
+        }
+        return serially(storeKey, () -> promote(key, storeKey).thenCompose(resident ->
+                appendHot(resident, batch).thenCompose(v -> {
+                    resident.dirty.addAll(batch);
+                    return resident.dirty.size() >= maxDirtyEntries ? writeBack(resident) : DONE;
+                })));
+    }
+
+    @Override
+    public CompletableFuture<List<SessionStoreEntry>> load(SessionKey key) {
+        return read(key, store -> store.load(key));
+    }
+
+    @Override
+    public CompletableFuture<List<SessionStoreEntry>> load(SessionKey key, long fromOffset, int limit) {
+        if (fromOffset < 0 || limit < 0) {
+            return SessionStore.super.load(key, fromOffset, limit);
+        }
+        return read(key, store -> store.load(key, fromOffset, limit));
+    }
+
+    @Override
+    public CompletableFuture<List<SessionStoreEntry>> loadTail(SessionKey key, int n) {
+        if (n < 0) {
+            return SessionStore.super.loadTail(key, n);
+        }
+        return read(key, store -> store.loadTail(key, n));
+    }
+
+    /**
+     * Compact the session in the cold tier. A resident copy is dropped from the hot tier and
+     * promoted again, already compacted, on its next read.
+     */
+    @Override
+    public CompletableFuture<Long> compact(SessionKey key) {
+        String storeKey = toStoreKey(key);
+        return serially(storeKey, () -> {
+            Resident resident = resident(storeKey);
+            CompletableFuture<Void> released = resident != null ? evict(storeKey, resident) : DONE;
+            return released.thenCompose(v -> cold.compact(key));
+        });
+    }
+
+    /**
+     * Fork in the cold tier once the parent's unwritten entries have reached it, so the cold
+     * tier's structural sharing applies. The child is promoted on its first read.
+     */
+    @Override
+    public CompletableFuture<Void> fork(SessionKey parentKey, long atEntry, SessionKey childKey) {
+        String parentStoreKey = toStoreKey(parentKey);
+        String childStoreKey = toStoreKey(childKey);
+        CompletableFuture<Void> parentWritten = serially(parentStoreKey, () -> {
+            Resident parent = resident(parentStoreKey);
+            return parent != null ? writeBack(parent) : DONE;
+        });
+        return serially(childStoreKey, () -> parentWritten.thenCompose(v -> {
+            Resident child = release(childStoreKey);
+            CompletableFuture<Void> released = child != null ? hot.delete(childKey) : DONE;
+            return released.thenCompose(x -> cold.fork(parentKey, atEntry, childKey));
+        }));
+    }
+
+    @Override
+    public CompletableFuture<List<SessionStoreEntry>> loadArchived(SessionKey key) {
+        return cold.loadArchived(key);
+    }
+
+    @Override
+    public CompletableFuture<List<SessionInfo>> listSessions(String projectKey) {
+        return flush().thenCompose(v -> cold.listSessions(projectKey));
+    }
+
+    @Override
+    public CompletableFuture<List<SessionInfo>> listSessions(String projectKey, int offset, int limit) {
+        return flush().thenCompose(v -> cold.listSessions(projectKey, offset, limit));
+    }
+
+    @Override
+    public CompletableFuture<Void> delete(SessionKey key) {
+        String storeKey = toStoreKey(key);
+        return serially(storeKey, () -> {
+            Resident resident = release(storeKey);
+            CompletableFuture<Void> released = resident != null ? hot.delete(key) : DONE;
+            return released.thenCompose(v -> cold.delete(key));
+        });
+    }
+
+    @Override
+    public CompletableFuture<List<String>> listSubkeys(SessionKey key) {
+        return flush().thenCompose(v -> cold.listSubkeys(key));
+    }
+
+    /**
+     * Write every resident session's unwritten entries to the cold tier. Also waits for the
+     * operations already submitted, including evictions that are still writing back.
+     */
+    public CompletableFuture<Void> flush() {
+        List<CompletableFuture<Void>> pending = new ArrayList<>(lanes.values());
+        if (writeMode == WriteMode.WRITE_BACK) {
+            List<Map.Entry<String, Resident>> snapshot;
+            synchronized (residents) {
+                snapshot = new ArrayList<>(residents.entrySet());
+            }
+            for (Map.Entry<String, Resident> entry : snapshot) {
+                Resident resident = entry.getValue();
+                pending.add(serially(entry.getKey(), () -> writeBack(resident)));
+            }
+        }
+        return CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0]));
+    }
+
+    /**
+     * Flush unwritten entries to the cold tier. The tiers themselves are not closed.
+     */
+    @Override
+    public void close() {
+        flush().join();
+    }
+
+    /**
+     * Number of reads served by the hot tier.
+     */
+    public long hotHitCount() {
+        return hotHits.sum();
+    }
+
+    /**
+     * Number of reads that had to load the session from the cold tier.
+     */
+    public long coldHitCount() {
+        return coldHits.sum();
+    }
+
+    /**
+     * Fraction of reads served by the hot tier, or 0 before the first read.
+     */
+    public double hotHitRate() {
+        long hits = hotHits.sum();
+        long total = hits + coldHits.sum();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * Number of sessions loaded from the cold tier into the hot tier.
+     */
+    public long promotionCount() {
+        return promotions.sum();
+    }
+
+    /**
+     * Number of sessions evicted from the hot tier.
+     */
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Number of entries written to the cold tier by write-back.
+     */
+    public long writeBackCount() {
+        return writeBacks.sum();
+    }
+
+    /**
+     * Number of sessions resident in the hot tier.
+     */
+    public int residentCount() {
+        synchronized (residents) {
+            return residents.size();
+        }
+    }
+
+    private <T> CompletableFuture<T> read(SessionKey key, Function<SessionStore, CompletableFuture<T>> reader) {
+        String storeKey = toStoreKey(key);
+        Resident resident;
+        synchronized (residents) {
+            resident = residents.get(storeKey);
+        }
+        if (resident != null) {
+            // Valid only if the session was not evicted while the hot tier was being read
+            return reader.apply(hot).thenCompose(value -> {
+                if (resident(storeKey) == resident) {
+                    hotHits.increment();
+                    return CompletableFuture.completedFuture(value);
+                }
+                return readPromoted(key, storeKey, reader);
+            });
+        }
+        return readPromoted(key, storeKey, reader);
+    }
+
+    private <T> CompletableFuture<T> readPromoted(SessionKey key, String storeKey,
+                                                  Function<SessionStore, CompletableFuture<T>> reader) {
+        return serially(storeKey, () -> promote(key, storeKey).thenCompose(resident -> {
+            if (resident.promoted) {
+                resident.promoted = false;
+                coldHits.increment();
+            } else {
+                hotHits.increment();
+            }
+            return reader.apply(hot);
+        }));
+    }
+
+    /**
+     * Make a session resident, loading it from the cold tier if needed. Runs in the key's lane.
+     * Any hot copy left behind by a failed eviction is cleared before the session is refilled.
+     */
+    private CompletableFuture<Resident> promote(SessionKey key, String storeKey) {
+        Resident existing = resident(storeKey);
+        if (existing != null) {
+            return CompletableFuture.completedFuture(existing);
+        }
+        return hot.delete(key).thenCompose(v -> cold.load(key)).thenCompose(entries -> {
+            Resident resident = new Resident(key);
+            resident.promoted = true;
+            CompletableFuture<Void> filled = entries.isEmpty() ? DONE : hot.append(key, entries);
+            return filled.thenApply(v -> {
+                promotions.increment();
+                admit(storeKey, resident, entries.size());
+                return resident;
+            });
+        });
+    }
+
+    private CompletableFuture<Void> appendHot(Resident resident, List<SessionStoreEntry> batch) {
+        return hot.append(resident.key, batch).thenRun(() -> {
+            synchronized (residents) {
+                resident.entries += batch.size();
+                if (!resident.evicting) {
+                    residentEntries += batch.size();
+                }
+            }
+            evictOverflow(resident);
+        });
+    }
+
+    private void admit(String storeKey, Resident resident, int entries) {
+        synchronized (residents) {
+            resident.entries = entries;
+            residentEntries += entries;
+            residents.put(storeKey, resident);
+        }
+        evictOverflow(resident);
+    }
+
+    /**
+     * Evict least recently used sessions, other than {@code keep}, until both bounds hold.
+     * <p>
+     * Victims stop counting against the bounds immediately but stay resident until their
+     * eviction reaches the front of their key's lane, so operations queued before it still see
+     * the hot copy.
+     */
+    private void evictOverflow(Resident keep) {
+        List<Map.Entry<String, Resident>> victims = new ArrayList<>();
+        synchronized (residents) {
+            Iterator<Map.Entry<String, Resident>> it = residents.entrySet().iterator();
+            while ((residents.size() - evicting > maxSessions || residentEntries > maxEntries) && it.hasNext()) {
+                Map.Entry<String, Resident> eldest = it.next();
+                Resident victim = eldest.getValue();
+                if (victim == keep || victim.evicting) {
+                    continue;
+                }
+                victim.evicting = true;
+                evicting++;
+                residentEntries -= victim.entries;
+                victims.add(eldest);
+            }
+        }
+        for (Map.Entry<String, Resident> victim : victims) {
+            serially(victim.getKey(), () -> {
+                // Skip if a compaction or delete already released it
+                if (resident(victim.getKey()) != victim.getValue()) {
+                    return DONE;
+                }
+                return evict(victim.getKey(), victim.getValue());
+            }).whenComplete((v, error) -> {
+                if (error != null) {
+                    logger.warn("Failed to evict session {} from the hot tier", victim.getKey(), error);
+                }
+            });
+        }
+    }
+
+    /**
+     * Write back, release and drop a resident session. Runs in the key's lane.
+     * <p>
+     * If the write-back fails the session stays resident with its unwritten entries, counting
+     * against the bounds again, so a later eviction or flush can retry.
+     */
+    private CompletableFuture<Void> evict(String storeKey, Resident resident) {
+        return writeBack(resident).handle((v, error) -> {
+            if (error != null) {
+                retain(resident);
+                return CompletableFuture.<Void>failedFuture(error);
+            }
+            release(storeKey);
+            evictions.increment();
+            return hot.delete(resident.key);
+        }).thenCompose(Function.identity());
+    }
+
+    private CompletableFuture<Void> writeBack(Resident resident) {
+        if (resident.dirty.isEmpty()) {
+            return DONE;
+        }
+        List<SessionStoreEntry> dirty = new ArrayList<>(resident.dirty);
+        return cold.append(resident.key, dirty).thenRun(() -> {
+            resident.dirty.subList(0, dirty.size()).clear();
+            writeBacks.add(dirty.size());
+        });
+    }
+
+    private Resident resident(String storeKey) {
+        synchronized (residents) {
+            return residents.get(storeKey);
+        }
+    }
+
+    private void retain(Resident resident) {
+        synchronized (residents) {
+            if (resident.evicting) {
+                resident.evicting = false;
+                evicting--;
+                residentEntries += resident.entries;
+            }
+        }
+    }
+
+    private Resident release(String storeKey) {
+        synchronized (residents) {
+            Resident resident = residents.remove(storeKey);
+            if (resident != null && resident.evicting) {
+                evicting--;
+            } else if (resident != null) {
+                residentEntries -= resident.entries;
+            }
+            return resident;
+        }
+    }
+
+    /**
+     * Run {@code op} after every operation previously submitted for the same key has finished.
+     * <p>
+     * An op queued behind a running one is started on the store's executor rather than on the
+     * thread that completed its predecessor: a long backlog of synchronously completing ops then
+     * cannot unwind as one deep recursion, and ops never run on a tier's internal threads.
+     */
+    private <T> CompletableFuture<T> serially(String storeKey, Supplier<CompletableFuture<T>> op) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        CompletableFuture<Void> turn = new CompletableFuture<>();
+        CompletableFuture<Void> previous = lanes.put(storeKey, turn);
+        BiConsumer<Void, Throwable> start = (ignored, previousError) -> {
+            CompletableFuture<T> started;
+            try {
+                started = op.get();
+            } catch (RuntimeException e) {
+                started = new CompletableFuture<>();
+                started.completeExceptionally(e);
+            }
+            started.whenComplete((value, error) -> {
+                lanes.remove(storeKey, turn);
+                turn.complete(null);
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(value);
+                }
+            });
+        };
+        if (previous == null || previous.isDone()) {
+            start.accept(null, null);
+        } else {
+            previous.whenCompleteAsync(start, executor);
+        }
+        return result;
+    }
+
+    private static String toStoreKey(SessionKey key) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(key.projectKey() != null ? key.projectKey() : "");
+        sb.append(":");
+        sb.append(key.sessionId() != null ? key.sessionId() : "");
+        if (key.subpath() != null && !key.subpath().isEmpty()) {
+            sb.append(":").append(key.subpath());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * A session held in the hot tier. {@code entries} and {@code evicting} are guarded by the
+     * resident map; the other fields are only touched from the key's lane.
+     */
+    private static final class Resident {
+        final SessionKey key;
+        final List<SessionStoreEntry> dirty = new ArrayList<>();
+        long entries;
+        boolean evicting;
+        boolean promoted;
+
+        Resident(SessionKey key) {
+            this.key = key;
+        }
+    }
+
+    public static final class Builder {
+        private SessionStore hot;
+        private SessionStore cold;
+        private WriteMode writeMode = WriteMode.WRITE_THROUGH;
+        private int maxSessions = 512;
+        private long maxEntries = 1_000_000;
+        private int maxDirtyEntries = 1024;
+        private Executor executor;
+
+        private Builder() {
+        }
+
+        /**
+         * Fast tier for resident sessions (default: a new {@link InMemorySessionStore}).
+         * It should not be shared with other stores.
+         */
+        public Builder hot(SessionStore hot) {
+            this.hot = hot;
+            return this;
+        }
+
+        /**
+         * Durable tier that holds every session.
+         */
+        public Builder cold(SessionStore cold) {
+            this.cold = cold;
+            return this;
+        }
+
+        public Builder writeMode(WriteMode writeMode) {
+            this.writeMode = Objects.requireNonNull(writeMode, "writeMode");
+            return this;
+        }
+
+        /**
+         * Maximum number of sessions resident in the hot tier.
+         */
+        public Builder maxSessions(int maxSessions) {
+            if (maxSessions <= 0) {
+                throw new IllegalArgumentException("maxSessions must be positive");
+            }
+            this.maxSessions = maxSessions;
+            return this;
+        }
+
+        /**
+         * Maximum number of entries, across all resident sessions, held in the hot tier.
+         * A single session larger than this stays resident until another session is promoted.
+         */
+        public Builder maxEntries(long maxEntries) {
+            if (maxEntries <= 0) {
+                throw new IllegalArgumentException("maxEntries must be positive");
+            }
+            this.maxEntries = maxEntries;
+            return this;
+        }
+
+        /**
+         * In {@link WriteMode#WRITE_BACK} mode, number of unwritten entries at which a session
+         * is written to the cold tier.
+         */
+        public Builder maxDirtyEntries(int maxDirtyEntries) {
+            if (maxDirtyEntries <= 0) {
+                throw new IllegalArgumentException("maxDirtyEntries must be positive");
+            }
+            this.maxDirtyEntries = maxDirtyEntries;
+            return this;
+        }
+
+        /**
+         * Executor that starts an operation queued behind another on the same session
+         * (default: the common fork-join pool).
+         */
+        public Builder executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        public TieredSessionStore build() {
+            return new TieredSessionStore(this);
+        }
+    }
+}
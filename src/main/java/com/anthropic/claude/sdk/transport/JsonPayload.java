@@ -0,0 +1,20 @@
+package com.anthropic.claude.sdk.transport;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+
+/**
+ * A JSON message that writes itself into a {@link JsonGenerator}.
+ * <p>
+ * Used by {@link Transport#writeJson(JsonPayload)} so envelopes can be serialized
+ * straight into the transport's byte buffer instead of being rendered to a String first.
+ */
+@FunctionalInterface
+public interface JsonPayload {
+
+    /**
+     * Write exactly one JSON value to the generator.
+     */
+    void writeTo(JsonGenerator generator) throws IOException;
+}
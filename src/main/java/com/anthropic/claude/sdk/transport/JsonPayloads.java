@@ -0,0 +1,26 @@
+package com.anthropic.claude.sdk.transport;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+/**
+ * Fallback rendering of {@link JsonPayload}s for transports that only accept text lines.
+ */
+final class JsonPayloads {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private JsonPayloads() {
+    }
+
+    static String render(JsonPayload payload) throws IOException {
+        StringWriter buffer = new StringWriter();
+        try (JsonGenerator generator = MAPPER.getFactory().createGenerator(buffer)) {
+            payload.writeTo(generator);
+        }
+        return buffer.toString();
+    }
+}
@@ -11,17 +11,19 @@ import com.anthropic.claude.sdk.types.options.SdkPluginConfig;
 import com.anthropic.claude.sdk.types.options.SettingSource;
 import com.anthropic.claude.sdk.types.mcp.McpSdkServerConfig;
 import com.anthropic.claude.sdk.types.mcp.McpServerConfig;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
+import java.io.OutputStream;
 import java.net.URI;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
@@ -54,6 +56,7 @@ public class SubprocessTransport implements Transport {
     private static final int WINDOWS_CMD_LIMIT = 8000;
     private static final int DEFAULT_CMD_LIMIT = 100000;
     private static final int DEFAULT_BUFFER_SIZE = 1024 * 1024;
+    private static final int MAX_RETAINED_WRITE_BUFFER = 64 * 1024;
 
     private final String prompt;
     private final boolean streamingMode;
@@ -67,7 +70,10 @@ public class SubprocessTransport implements Transport {
 
     private Process process;
     private BufferedReader stdoutReader;
-    private BufferedWriter stdinWriter;
+    private OutputStream stdin;
+    private final Object writeLock = new Object();
+    // Guarded by writeLock; reused so each message is rendered in full before it reaches stdin
+    private ByteArrayOutputStream writeBuffer = new ByteArrayOutputStream(8192);
     private BufferedReader stderrReader;
     private volatile boolean ready;
 
@@ -130,10 +136,9 @@ public class SubprocessTransport implements Transport {
                         bufferSize
                 );
 
-                stdinWriter = new BufferedWriter(
-                        new OutputStreamWriter(process.getOutputStream()),
-                        bufferSize
-                );
+                // Process stdin is already buffered; JSON payloads are encoded by Jackson's
+                // recycled UTF-8 buffer and written through without an intermediate String
+                stdin = process.getOutputStream();
 
                 stderrReader = new BufferedReader(
                         new InputStreamReader(process.getErrorStream()),
@@ -144,9 +149,9 @@ public class SubprocessTransport implements Transport {
                 executor.submit(this::readStderr);
 
                 // For non-streaming mode, close stdin immediately
-                if (!streamingMode && stdinWriter != null) {
-                    stdinWriter.close();
-                    stdinWriter = null;
+                if (!streamingMode && stdin != null) {
+                    stdin.close();
+                    stdin = null;
                 }
 
                 ready = true;
@@ -163,20 +168,57 @@ public class SubprocessTransport implements Transport {
     @Override
     public CompletableFuture<Void> write(String line) {
         return CompletableFuture.runAsync(() -> {
-            if (!ready || stdinWriter == null) {
-                throw new IllegalStateException("Transport not connected");
+            byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+            synchronized (writeLock) {
+                OutputStream out = connectedStdin();
+                try {
+                    out.write(bytes);
+                    out.write('\n');
+                    out.flush();
+                } catch (IOException e) {
+                    throw new CLIConnectionException("Failed to write to CLI stdin", e);
+                }
             }
+        }, executor);
+    }
 
-            try {
-                stdinWriter.write(line);
-                stdinWriter.newLine();
-                stdinWriter.flush();
-            } catch (IOException e) {
-                throw new CLIConnectionException("Failed to write to CLI stdin", e);
+    @Override
+    public CompletableFuture<Void> writeJson(JsonPayload payload) {
+        return CompletableFuture.runAsync(() -> {
+            synchronized (writeLock) {
+                OutputStream out = connectedStdin();
+                ByteArrayOutputStream buffer = writeBuffer;
+                buffer.reset();
+                try {
+                    // A payload that fails part way must not leave a partial line on the protocol stream
+                    try (JsonGenerator generator = objectMapper.getFactory().createGenerator(buffer, JsonEncoding.UTF8)) {
+                        payload.writeTo(generator);
+                    }
+                    buffer.write('\n');
+                } catch (IOException e) {
+                    throw new CLIConnectionException("Failed to serialize message for CLI stdin", e);
+                } finally {
+                    if (buffer.size() > MAX_RETAINED_WRITE_BUFFER) {
+                        writeBuffer = new ByteArrayOutputStream(8192);
+                    }
+                }
+                try {
+                    buffer.writeTo(out);
+                    out.flush();
+                } catch (IOException e) {
+                    throw new CLIConnectionException("Failed to write to CLI stdin", e);
+                }
             }
         }, executor);
     }
 
+    private OutputStream connectedStdin() {
+        if (!ready || stdin == null) {
+            throw new IllegalStateException("Transport not connected");
+        }
+        return stdin;
+    }
+
     @Override
     public Stream<String> readLines() {
         if (!ready || stdoutReader == null) {
@@ -194,13 +236,15 @@ public class SubprocessTransport implements Transport {
     @Override
     public CompletableFuture<Void> endInput() {
         return CompletableFuture.runAsync(() -> {
-            if (stdinWriter != null) {
-                try {
-                    stdinWriter.close();
-                } catch (IOException e) {
-                    logger.warn("Error closing stdin", e);
-                } finally {
-                    stdinWriter = null;
+            synchronized (writeLock) {
+                if (stdin != null) {
+                    try {
+                        stdin.close();
+                    } catch (IOException e) {
+                        logger.warn("Error closing stdin", e);
+                    } finally {
+                        stdin = null;
+                    }
                 }
             }
         }, executor);
@@ -211,8 +255,8 @@ public class SubprocessTransport implements Transport {
         ready = false;
 
         try {
-            if (stdinWriter != null) {
-                stdinWriter.close();
+            if (stdin != null) {
+                stdin.close();
             }
             if (stdoutReader != null) {
                 stdoutReader.close();
@@ -380,7 +424,7 @@ public class SubprocessTransport implements Transport {
                 Map<String, Object> payload = new HashMap<>();
                 for (Map.Entry<String, AgentDefinition> entry : options.getAgents().entrySet()) {
                     AgentDefinition definition = entry.getValue();
-                    payload.put(entry.getKey(), definition != null ? definition.toMap() : Collections.emptyMap());
+                    payload.put(entry.getKey(), definition != null ? definition : Collections.emptyMap());
                 }
                 agentsJson = objectMapper.writeValueAsString(payload);
                 cmd.add("--agents");
@@ -1,6 +1,7 @@
 package com.anthropic.claude.sdk.transport;
 
 import java.io.Closeable;
+import java.io.IOException;
 import java.util.concurrent.CompletableFuture;
 import java.util.stream.Stream;
 
@@ -21,6 +22,25 @@ public interface Transport extends Closeable {
      */
     CompletableFuture<Void> write(String line);
 
+    /**
+     * Write a JSON message to the CLI stdin, streaming it through a generator.
+     * <p>
+     * The default implementation renders the payload to a String and delegates to
+     * {@link #write(String)}; transports backed by a byte stream should override it
+     * to write directly.
+     *
+     * @param payload message to write as a single line
+     */
+    default CompletableFuture<Void> writeJson(JsonPayload payload) {
+        try {
+            return write(JsonPayloads.render(payload));
+        } catch (IOException e) {
+            CompletableFuture<Void> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+    }
+
     /**
      * Read messages from the CLI stdout.
      *
@@ -1,14 +1,31 @@
 package com.anthropic.claude.sdk.types.options;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 /**
  * Definition for a custom agent configuration.
+ * <p>
+ * Implements {@link JsonSerializable} so the {@code --agents} payload is streamed directly
+ * into Jackson's generator, without reflection or an intermediate map. {@link #toMap()} is read
+ * back from the same writer.
  */
-public final class AgentDefinition {
+public final class AgentDefinition extends JsonSerializable.Base {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {
+    };
 
     private final String description;
     private final String prompt;
@@ -64,29 +81,55 @@ public final class AgentDefinition {
      * Serialize definition for CLI consumption.
      */
     public Map<String, Object> toMap() {
-        Map<String, Object> result = new HashMap<>();
+        try (TokenBuffer buffer = new TokenBuffer(MAPPER, false)) {
+            serialize(buffer, MAPPER.getSerializerProviderInstance());
+            return MAPPER.readValue(buffer.asParser(), MAP_TYPE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        gen.writeStartObject();
         if (description != null) {
-            result.put("description", description);
+            gen.writeStringField("description", description);
         }
         if (prompt != null) {
-            result.put("prompt", prompt);
+            gen.writeStringField("prompt", prompt);
         }
         if (tools != null && !tools.isEmpty()) {
-            result.put("tools", tools);
+            writeStrings(gen, "tools", tools);
         }
         if (disallowedTools != null && !disallowedTools.isEmpty()) {
-            result.put("disallowedTools", disallowedTools);
+            writeStrings(gen, "disallowedTools", disallowedTools);
         }
         if (model != null) {
-            result.put("model", model);
+            gen.writeStringField("model", model);
         }
         if (mcpServers != null && !mcpServers.isEmpty()) {
-            result.put("mcpServers", mcpServers);
+            // Entries are server names or inline config maps; let the codec handle either
+            gen.writeFieldName("mcpServers");
+            gen.writeObject(mcpServers);
         }
         if (criticalSystemReminder != null) {
-            result.put("criticalSystemReminder", criticalSystemReminder);
+            gen.writeStringField("criticalSystemReminder", criticalSystemReminder);
+        }
+        gen.writeEndObject();
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer)
+            throws IOException {
+        serialize(gen, serializers);
+    }
+
+    private static void writeStrings(JsonGenerator gen, String field, List<String> values) throws IOException {
+        gen.writeArrayFieldStart(field);
+        for (String value : values) {
+            gen.writeString(value);
         }
-        return result;
+        gen.writeEndArray();
     }
 
     public static final class Builder {
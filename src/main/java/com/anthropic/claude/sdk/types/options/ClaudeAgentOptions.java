@@ -1,11 +1,14 @@
 package com.anthropic.claude.sdk.types.options;
 
+import com.anthropic.claude.sdk.protocol.JsonSchemaGenerator;
 import com.anthropic.claude.sdk.session.SessionStore;
 import com.anthropic.claude.sdk.transport.SpawnProcessFunction;
 import com.anthropic.claude.sdk.types.hooks.HookCallbackMatcher;
 import com.anthropic.claude.sdk.types.mcp.McpServerConfig;
 import com.anthropic.claude.sdk.types.permissions.ToolPermissionCallback;
+import com.fasterxml.jackson.core.type.TypeReference;
 
+import java.lang.reflect.Type;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -56,6 +59,7 @@ public final class ClaudeAgentOptions {
     private final Map<String, AgentDefinition> agents;
     private final List<SdkPluginConfig> plugins;
     private final Map<String, Object> outputFormat;
+    private final Type outputType;
     private final Consumer<String> stderr;
     private final List<SdkBeta> betas;
     private final SandboxSettings sandbox;
@@ -101,6 +105,7 @@ public final class ClaudeAgentOptions {
         this.agents = Collections.unmodifiableMap(builder.agents);
         this.plugins = Collections.unmodifiableList(builder.plugins);
         this.outputFormat = builder.outputFormat;
+        this.outputType = builder.outputType;
         this.stderr = builder.stderr;
         this.betas = builder.betas;
         this.sandbox = builder.sandbox;
@@ -155,6 +160,7 @@ public final class ClaudeAgentOptions {
         b.agents = new HashMap<>(this.agents);
         b.plugins = new ArrayList<>(this.plugins);
         b.outputFormat = this.outputFormat;
+        b.outputType = this.outputType;
         b.stderr = this.stderr;
         b.betas = this.betas;
         b.sandbox = this.sandbox;
@@ -311,6 +317,13 @@ public final class ClaudeAgentOptions {
         return outputFormat;
     }
 
+    /**
+     * Type that {@code structured_output} is bound to, or {@code null} for the generic Map/List form.
+     */
+    public Type getOutputType() {
+        return outputType;
+    }
+
     public Consumer<String> getStderr() {
         return stderr;
     }
@@ -385,6 +398,7 @@ public final class ClaudeAgentOptions {
         private Map<String, AgentDefinition> agents = new HashMap<>();
         private List<SdkPluginConfig> plugins = new ArrayList<>();
         private Map<String, Object> outputFormat;
+        private Type outputType;
         private Consumer<String> stderr;
         private List<SdkBeta> betas;
         private SandboxSettings sandbox;
@@ -579,8 +593,41 @@ public final class ClaudeAgentOptions {
             return this;
         }
 
+        /**
+         * Request structured output matching the given format. Replaces any earlier
+         * {@link #outputType(Class) outputType}, so results are no longer bound to it.
+         */
         public Builder outputFormat(Map<String, Object> outputFormat) {
             this.outputFormat = outputFormat;
+            this.outputType = null;
+            return this;
+        }
+
+        /**
+         * Request structured output bound to the given type.
+         * The JSON schema is derived from the type here, once, and set as the output format,
+         * replacing any earlier {@link #outputFormat(Map) outputFormat}. {@code null} clears both.
+         */
+        public Builder outputType(Class<?> outputType) {
+            return outputType((Type) outputType);
+        }
+
+        /**
+         * Request structured output bound to the given generic type.
+         */
+        public Builder outputType(TypeReference<?> outputType) {
+            return outputType(outputType != null ? outputType.getType() : null);
+        }
+
+        private Builder outputType(Type outputType) {
+            this.outputType = outputType;
+            this.outputFormat = null;
+            if (outputType != null) {
+                Map<String, Object> format = new HashMap<>();
+                format.put("type", "json_schema");
+                format.put("schema", JsonSchemaGenerator.schemaFor(outputType));
+                this.outputFormat = format;
+            }
             return this;
         }
 
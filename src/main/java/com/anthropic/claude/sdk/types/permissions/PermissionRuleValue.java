@@ -1,9 +1,16 @@
 package com.anthropic.claude.sdk.types.permissions;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+import java.io.IOException;
+
 /**
  * A permission rule value consisting of a tool name and rule content.
  */
-public final class PermissionRuleValue {
+public final class PermissionRuleValue extends JsonSerializable.Base {
     private final String toolName;
     private final String ruleContent;
 
@@ -19,4 +26,20 @@ public final class PermissionRuleValue {
     public String ruleContent() {
         return ruleContent;
     }
+
+    @Override
+    public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("toolName", toolName);
+        if (ruleContent != null) {
+            gen.writeStringField("ruleContent", ruleContent);
+        }
+        gen.writeEndObject();
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider serializers,
+                                  TypeSerializer typeSer) throws IOException {
+        serialize(gen, serializers);
+    }
 }
@@ -1,6 +1,9 @@
 package com.anthropic.claude.sdk.types.permissions;
 
-import java.util.HashMap;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
@@ -14,7 +17,7 @@ public interface PermissionUpdate {
      */
     Map<String, Object> toMap();
 
-    final class AddRules implements PermissionUpdate {
+    final class AddRules extends StreamedPermissionUpdate {
         private final List<PermissionRuleValue> rules;
         private final String behavior;
         private final String destination;
@@ -38,21 +41,12 @@ public interface PermissionUpdate {
         }
 
         @Override
-        public Map<String, Object> toMap() {
-            Map<String, Object> result = new HashMap<>();
-            result.put("type", "addRules");
-            result.put("rules", rules);
-            if (behavior != null) {
-                result.put("behavior", behavior);
-            }
-            if (destination != null) {
-                result.put("destination", destination);
-            }
-            return result;
+        public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            writeRules(gen, serializers, "addRules", rules, behavior, destination);
         }
     }
 
-    final class ReplaceRules implements PermissionUpdate {
+    final class ReplaceRules extends StreamedPermissionUpdate {
         private final List<PermissionRuleValue> rules;
         private final String behavior;
         private final String destination;
@@ -76,21 +70,12 @@ public interface PermissionUpdate {
         }
 
         @Override
-        public Map<String, Object> toMap() {
-            Map<String, Object> result = new HashMap<>();
-            result.put("type", "replaceRules");
-            result.put("rules", rules);
-            if (behavior != null) {
-                result.put("behavior", behavior);
-            }
-            if (destination != null) {
-                result.put("destination", destination);
-            }
-            return result;
+        public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            writeRules(gen, serializers, "replaceRules", rules, behavior, destination);
         }
     }
 
-    final class RemoveRules implements PermissionUpdate {
+    final class RemoveRules extends StreamedPermissionUpdate {
         private final List<PermissionRuleValue> rules;
         private final String behavior;
         private final String destination;
@@ -114,21 +99,12 @@ public interface PermissionUpdate {
         }
 
         @Override
-        public Map<String, Object> toMap() {
-            Map<String, Object> result = new HashMap<>();
-            result.put("type", "removeRules");
-            result.put("rules", rules);
-            if (behavior != null) {
-                result.put("behavior", behavior);
-            }
-            if (destination != null) {
-                result.put("destination", destination);
-            }
-            return result;
+        public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            writeRules(gen, serializers, "removeRules", rules, behavior, destination);
         }
     }
 
-    final class SetMode implements PermissionUpdate {
+    final class SetMode extends StreamedPermissionUpdate {
         private final String mode;
         private final String destination;
 
@@ -146,18 +122,18 @@ public interface PermissionUpdate {
         }
 
         @Override
-        public Map<String, Object> toMap() {
-            Map<String, Object> result = new HashMap<>();
-            result.put("type", "setMode");
-            result.put("mode", mode);
+        public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            gen.writeStartObject();
+            gen.writeStringField("type", "setMode");
+            gen.writeStringField("mode", mode);
             if (destination != null) {
-                result.put("destination", destination);
+                gen.writeStringField("destination", destination);
             }
-            return result;
+            gen.writeEndObject();
         }
     }
 
-    final class AddDirectories implements PermissionUpdate {
+    final class AddDirectories extends StreamedPermissionUpdate {
         private final List<String> directories;
         private final String destination;
 
@@ -175,18 +151,12 @@ public interface PermissionUpdate {
         }
 
         @Override
-        public Map<String, Object> toMap() {
-            Map<String, Object> result = new HashMap<>();
-            result.put("type", "addDirectories");
-            result.put("directories", directories);
-            if (destination != null) {
-                result.put("destination", destination);
-            }
-            return result;
+        public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            writeDirectories(gen, "addDirectories", directories, destination);
         }
     }
 
-    final class RemoveDirectories implements PermissionUpdate {
+    final class RemoveDirectories extends StreamedPermissionUpdate {
         private final List<String> directories;
         private final String destination;
 
@@ -204,14 +174,8 @@ public interface PermissionUpdate {
         }
 
         @Override
-        public Map<String, Object> toMap() {
-            Map<String, Object> result = new HashMap<>();
-            result.put("type", "removeDirectories");
-            result.put("directories", directories);
-            if (destination != null) {
-                result.put("destination", destination);
-            }
-            return result;
+        public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            writeDirectories(gen, "removeDirectories", directories, destination);
         }
     }
 }
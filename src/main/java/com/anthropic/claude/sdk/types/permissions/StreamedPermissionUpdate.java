@@ -0,0 +1,87 @@
+package com.anthropic.claude.sdk.types.permissions;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Base of the built-in {@link PermissionUpdate} variants.
+ * <p>
+ * Each variant writes its wire form straight into Jackson's generator; {@link #toMap()} is
+ * read back from that same writer, so there is a single serialization per variant.
+ */
+abstract class StreamedPermissionUpdate extends JsonSerializable.Base implements PermissionUpdate {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {
+    };
+
+    @Override
+    public final Map<String, Object> toMap() {
+        try (TokenBuffer buffer = new TokenBuffer(MAPPER, false)) {
+            serialize(buffer, MAPPER.getSerializerProviderInstance());
+            return MAPPER.readValue(buffer.asParser(), MAP_TYPE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer)
+            throws IOException {
+        serialize(gen, serializers);
+    }
+
+    static void writeRules(JsonGenerator gen, SerializerProvider serializers, String type,
+                           List<PermissionRuleValue> rules, String behavior, String destination)
+            throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("type", type);
+        gen.writeFieldName("rules");
+        if (rules == null) {
+            gen.writeNull();
+        } else {
+            gen.writeStartArray();
+            for (PermissionRuleValue rule : rules) {
+                rule.serialize(gen, serializers);
+            }
+            gen.writeEndArray();
+        }
+        if (behavior != null) {
+            gen.writeStringField("behavior", behavior);
+        }
+        if (destination != null) {
+            gen.writeStringField("destination", destination);
+        }
+        gen.writeEndObject();
+    }
+
+    static void writeDirectories(JsonGenerator gen, String type, List<String> directories,
+                                 String destination) throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("type", type);
+        gen.writeFieldName("directories");
+        if (directories == null) {
+            gen.writeNull();
+        } else {
+            gen.writeStartArray();
+            for (String directory : directories) {
+                gen.writeString(directory);
+            }
+            gen.writeEndArray();
+        }
+        if (destination != null) {
+            gen.writeStringField("destination", destination);
+        }
+        gen.writeEndObject();
+    }
+}
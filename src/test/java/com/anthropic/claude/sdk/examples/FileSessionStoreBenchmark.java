@@ -0,0 +1,96 @@
+package com.anthropic.claude.sdk.examples;
+
+import com.anthropic.claude.sdk.session.FileSessionStore;
+import com.anthropic.claude.sdk.session.SessionKey;
+import com.anthropic.claude.sdk.session.SessionStoreEntry;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Measures {@link FileSessionStore} append throughput and latency percentiles.
+ * <p>
+ * Each of {@code sessions} threads appends one entry at a time to its own session and waits for
+ * the append to be durable before the next, the way the SDK mirrors a transcript. Concurrent
+ * sessions share each fsync through group commit, so throughput grows with the session count
+ * while per-append latency stays close to one fsync. The store lives in a temporary directory
+ * that is removed afterwards. No CLI or API key is needed.
+ */
+public class FileSessionStoreBenchmark {
+
+    private static final int APPENDS_PER_SESSION = 2_000;
+    private static final int[] SESSIONS = {1, 16, 64};
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("=".repeat(60));
+        System.out.println("FileSessionStore Benchmark");
+        System.out.println("=".repeat(60));
+
+        // Warm up the encoder and writer thread; the results are discarded
+        run(16, false, false);
+        for (boolean fsync : new boolean[]{true, false}) {
+            for (int sessions : SESSIONS) {
+                run(sessions, fsync, true);
+            }
+        }
+    }
+
+    private static void run(int sessions, boolean fsync, boolean report) throws Exception {
+        Path root = Files.createTempDirectory("file-session-store-bench");
+        try (FileSessionStore store = FileSessionStore.builder().root(root).fsync(fsync).build()) {
+            long[][] latencies = new long[sessions][APPENDS_PER_SESSION];
+            List<Thread> threads = new ArrayList<>();
+            for (int s = 0; s < sessions; s++) {
+                int session = s;
+                threads.add(new Thread(() -> appendAll(store, session, latencies[session])));
+            }
+            long start = System.nanoTime();
+            threads.forEach(Thread::start);
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            if (!report) {
+                return;
+            }
+            long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+            System.out.printf("fsync=%-5s %2d sessions: %8.0f appends/s, p50 %7.1f us, p99 %7.1f us, p99.9 %7.1f us%n",
+                    fsync, sessions, all.length / seconds,
+                    percentile(all, 0.50), percentile(all, 0.99), percentile(all, 0.999));
+        } finally {
+            deleteRecursively(root);
+        }
+    }
+
+    private static void appendAll(FileSessionStore store, int session, long[] latencies) {
+        SessionKey key = new SessionKey("bench", "session-" + session, null);
+        for (int i = 0; i < latencies.length; i++) {
+            List<SessionStoreEntry> entries = List.of(new SessionStoreEntry("assistant", Map.of(
+                    "type", "assistant",
+                    "message", Map.of("content", List.of(Map.of("type", "text", "text", "Reply " + i))))));
+            long start = System.nanoTime();
+            store.append(key, entries).join();
+            latencies[i] = System.nanoTime() - start;
+        }
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))] / 1_000.0;
+    }
+
+    private static void deleteRecursively(Path root) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.anthropic.claude.sdk.examples;
+
+import com.anthropic.claude.sdk.session.InMemorySessionStore;
+import com.anthropic.claude.sdk.session.SessionKey;
+import com.anthropic.claude.sdk.session.SessionStoreEntry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Measures building and loading 10k- and 100k-entry sessions in {@link InMemorySessionStore}.
+ * <p>
+ * Entries are appended one at a time, the way the SDK mirrors a transcript. For comparison, the
+ * same appends are replayed against the copy-on-append list the store used before its chunked
+ * log, whose cost grows with the square of the session length. No CLI or API key is needed.
+ */
+public class InMemorySessionStoreBenchmark {
+
+    private static final int[] SIZES = {10_000, 100_000};
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) {
+        System.out.println("=".repeat(60));
+        System.out.println("InMemorySessionStore Benchmark");
+        System.out.println("=".repeat(60));
+
+        for (int size : SIZES) {
+            List<List<SessionStoreEntry>> appends = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                appends.add(List.of(new SessionStoreEntry("assistant", Map.of("type", "assistant", "turn", i))));
+            }
+            for (int round = 0; round < ROUNDS; round++) {
+                InMemorySessionStore store = new InMemorySessionStore();
+                SessionKey key = new SessionKey("bench", "session-" + round, null);
+                long start = System.nanoTime();
+                for (List<SessionStoreEntry> entries : appends) {
+                    store.append(key, entries).join();
+                }
+                long append = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                int loaded = store.load(key).join().size();
+                long load = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                int copied = copyOnAppend(appends).size();
+                long copying = System.nanoTime() - start;
+
+                if (loaded != size || copied != size) {
+                    throw new IllegalStateException("Expected " + size + " entries");
+                }
+                System.out.printf("%,7d entries, round %d: %6.1f ns/append, load %6.1f us; copy-on-append %8.1f ns/append%n",
+                        size, round + 1, (double) append / size, load / 1_000.0, (double) copying / size);
+            }
+        }
+    }
+
+    /**
+     * The previous append: copy the existing list and add the new entries to the copy.
+     */
+    private static List<SessionStoreEntry> copyOnAppend(List<List<SessionStoreEntry>> appends) {
+        List<SessionStoreEntry> session = new ArrayList<>();
+        for (List<SessionStoreEntry> entries : appends) {
+            List<SessionStoreEntry> next = new ArrayList<>(session);
+            next.addAll(entries);
+            session = next;
+        }
+        return session;
+    }
+}
@@ -0,0 +1,98 @@
+package com.anthropic.claude.sdk.examples;
+
+import com.anthropic.claude.sdk.protocol.MessageParser;
+import com.anthropic.claude.sdk.protocol.StringInterner;
+import com.anthropic.claude.sdk.types.content.ContentBlock;
+import com.anthropic.claude.sdk.types.content.ToolUseBlock;
+import com.anthropic.claude.sdk.types.messages.AssistantMessage;
+import com.anthropic.claude.sdk.types.messages.Message;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Measures what {@link StringInterner} saves on a long transcript.
+ * <p>
+ * A synthetic {@code TURNS}-turn transcript of assistant messages is parsed twice: once through
+ * a {@link MessageParser} with an interner, and once with interning disabled. For each run it
+ * reports the parse time and the distinct identifier strings (session id, model, tool names,
+ * parent tool use ids) retained by the parsed messages, with an estimate of their heap size.
+ * No CLI or API key is needed.
+ */
+public class InternerBenchmark {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final int TURNS = 10_000;
+    private static final String[] TOOLS = {"Read", "Edit", "Bash", "Grep", "Glob", "Write"};
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("=".repeat(60));
+        System.out.println("Interner Benchmark");
+        System.out.println("=".repeat(60));
+
+        List<String> lines = transcript();
+
+        // Alternate the two so neither benefits from running second
+        for (int round = 0; round < 3; round++) {
+            StringInterner interner = new StringInterner();
+            run("interned", new MessageParser(interner), lines);
+            // A zero maximum length caches nothing, so every value is a fresh copy
+            run("plain", new MessageParser(new StringInterner(1, 0)), lines);
+            System.out.printf("round %d hit rate %.1f%%%n%n", round + 1, interner.hitRate() * 100);
+        }
+    }
+
+    private static void run(String name, MessageParser parser, List<String> lines) {
+        long start = System.nanoTime();
+        List<Message> messages = new ArrayList<>(lines.size());
+        for (String line : lines) {
+            messages.add(parser.parse(line));
+        }
+        double millis = (System.nanoTime() - start) / 1e6;
+
+        Set<String> retained = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Message message : messages) {
+            AssistantMessage assistant = (AssistantMessage) message;
+            retained.add(assistant.sessionId());
+            retained.add(assistant.model());
+            retained.add(assistant.parentToolUseId());
+            for (ContentBlock block : assistant.content()) {
+                if (block instanceof ToolUseBlock) {
+                    retained.add(((ToolUseBlock) block).name());
+                }
+            }
+        }
+        long bytes = 0;
+        for (String value : retained) {
+            // Compact string: 24-byte String header plus a 16-byte array header and one byte per char
+            bytes += 40 + ((value.length() + 7) & ~7);
+        }
+        System.out.printf("%-9s %7.1f ms for %d turns, %6d identifier strings retained (~%,d bytes)%n",
+                name, millis, lines.size(), retained.size(), bytes);
+    }
+
+    private static List<String> transcript() throws Exception {
+        List<String> lines = new ArrayList<>(TURNS);
+        for (int turn = 0; turn < TURNS; turn++) {
+            Map<String, Object> toolUse = Map.of(
+                    "type", "tool_use",
+                    "id", "toolu_" + turn,
+                    "name", TOOLS[turn % TOOLS.length],
+                    "input", Map.of("path", "src/Main.java"));
+            Map<String, Object> message = Map.of(
+                    "model", "claude-sonnet-4-5",
+                    "content", List.of(Map.of("type", "text", "text", "Turn " + turn), toolUse));
+            lines.add(MAPPER.writeValueAsString(Map.of(
+                    "type", "assistant",
+                    "message", message,
+                    "parent_tool_use_id", "toolu_parent",
+                    "session_id", "0b7c5c5e-2f0a-4d4e-9a39-6f1a1f6b2c11")));
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,196 @@
+package com.anthropic.claude.sdk.examples;
+
+import com.anthropic.claude.sdk.mcp.SdkMcpHttpServer;
+import com.anthropic.claude.sdk.mcp.SdkMcpServer;
+import com.anthropic.claude.sdk.mcp.SdkMcpStdioServer;
+import com.anthropic.claude.sdk.mcp.SdkMcpTool;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.channels.Channels;
+import java.nio.channels.Pipe;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Compares the latency and throughput of tools/call in-process, over stdio and over HTTP.
+ * <p>
+ * One {@link SdkMcpServer} with a trivial tool is served three ways: called directly (the path
+ * used for SDK servers in {@code mcpServers}), through {@link SdkMcpStdioServer} over a pipe,
+ * and through {@link SdkMcpHttpServer} on the loopback interface. For each, it reports the mean
+ * latency of sequential calls and the throughput with {@code CONCURRENCY} calls outstanding.
+ * Everything runs in this JVM; no CLI or API key is needed.
+ */
+public class McpTransportBenchmark {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final int WARMUP = 5_000;
+    private static final int CALLS = 20_000;
+    private static final int CONCURRENCY = 16;
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("=".repeat(60));
+        System.out.println("MCP Transport Benchmark");
+        System.out.println("=".repeat(60));
+
+        SdkMcpTool echo = SdkMcpTool.builder()
+                .name("echo")
+                .description("Echo the text back")
+                .inputSchema(Map.of("text", "string"))
+                .handler(input -> CompletableFuture.completedFuture(
+                        Map.of("content", List.of(Map.of("type", "text", "text", input.get("text"))))))
+                .build();
+        SdkMcpServer server = SdkMcpServer.builder()
+                .name("bench")
+                .version("1.0.0")
+                .addTool(echo)
+                .build();
+
+        run("in-process", id -> server.handleMessage(request(id)).thenApply(response -> null));
+
+        try (StdioClient stdio = new StdioClient(server)) {
+            run("stdio", stdio::call);
+        }
+
+        // TCP_NODELAY avoids ~40 ms delayed-ACK stalls per response; it is a JVM-wide setting
+        try (SdkMcpHttpServer http = SdkMcpHttpServer.builder().server(server).tcpNoDelay(true).build().start()) {
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            URI url = http.getUrl();
+            run("http", id -> client.sendAsync(
+                    HttpRequest.newBuilder(url)
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString(request(id).toString()))
+                            .build(),
+                    HttpResponse.BodyHandlers.discarding()).thenApply(response -> null));
+        }
+    }
+
+    private static void run(String transport, Function<Long, CompletableFuture<Void>> caller) {
+        AtomicLong ids = new AtomicLong();
+        for (int i = 0; i < WARMUP; i++) {
+            caller.apply(ids.incrementAndGet()).join();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < CALLS; i++) {
+            caller.apply(ids.incrementAndGet()).join();
+        }
+        double latencyMicros = (System.nanoTime() - start) / 1_000.0 / CALLS;
+
+        start = System.nanoTime();
+        List<CompletableFuture<Void>> workers = new ArrayList<>();
+        for (int w = 0; w < CONCURRENCY; w++) {
+            workers.add(callInSequence(caller, ids, CALLS / CONCURRENCY));
+        }
+        CompletableFuture.allOf(workers.toArray(new CompletableFuture<?>[0])).join();
+        double callsPerSecond = CALLS / ((System.nanoTime() - start) / 1e9);
+
+        System.out.printf("%-11s %8.1f us/call sequential, %9.0f calls/s with %d in flight%n",
+                transport, latencyMicros, callsPerSecond, CONCURRENCY);
+    }
+
+    private static CompletableFuture<Void> callInSequence(Function<Long, CompletableFuture<Void>> caller,
+                                                          AtomicLong ids, int remaining) {
+        if (remaining == 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return caller.apply(ids.incrementAndGet())
+                .thenCompose(ignored -> callInSequence(caller, ids, remaining - 1));
+    }
+
+    private static JsonNode request(long id) {
+        return MAPPER.valueToTree(Map.of(
+                "jsonrpc", "2.0",
+                "id", id,
+                "method", "tools/call",
+                "params", Map.of("name", "echo", "arguments", Map.of("text", "hello"))
+        ));
+    }
+
+    /**
+     * Minimal stdio MCP client: runs the stdio server on a thread, connected through two pipes,
+     * and matches responses to requests by id.
+     */
+    private static final class StdioClient implements AutoCloseable {
+        private final Map<Long, CompletableFuture<Void>> pending = new ConcurrentHashMap<>();
+        private final OutputStream requests;
+        private final Thread serverThread;
+        private final Thread readerThread;
+
+        StdioClient(SdkMcpServer server) throws IOException {
+            Pipe toServer = Pipe.open();
+            Pipe fromServer = Pipe.open();
+            requests = Channels.newOutputStream(toServer.sink());
+            SdkMcpStdioServer stdio = SdkMcpStdioServer.builder()
+                    .server(server)
+                    .input(Channels.newInputStream(toServer.source()))
+                    .output(Channels.newOutputStream(fromServer.sink()))
+                    .build();
+            serverThread = new Thread(() -> {
+                try {
+                    stdio.run();
+                    fromServer.sink().close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, "stdio-server");
+            readerThread = new Thread(() -> {
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                        Channels.newInputStream(fromServer.source()), StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        CompletableFuture<Void> future = pending.remove(MAPPER.readTree(line).get("id").asLong());
+                        if (future != null) {
+                            future.complete(null);
+                        }
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, "stdio-client");
+            serverThread.start();
+            readerThread.start();
+        }
+
+        CompletableFuture<Void> call(long id) {
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            pending.put(id, future);
+            byte[] line = (request(id).toString() + "\n").getBytes(StandardCharsets.UTF_8);
+            try {
+                synchronized (requests) {
+                    requests.write(line);
+                }
+            } catch (IOException e) {
+                pending.remove(id);
+                future.completeExceptionally(e);
+            }
+            return future;
+        }
+
+        @Override
+        public void close() throws IOException {
+            requests.close();
+            try {
+                serverThread.join();
+                readerThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.anthropic.claude.sdk.examples;
+
+import com.anthropic.claude.sdk.mcp.SdkMcpServer;
+import com.anthropic.claude.sdk.mcp.SdkMcpTool;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Measures the wall-clock gain of running concurrent tools/call requests in parallel.
+ * <p>
+ * A deliberately slow tool (it sleeps, like a handler waiting on I/O) is called {@code CALLS}
+ * times, first one call at a time and then with every call dispatched at once, the way the CLI
+ * sends parallel tool uses. No CLI or API key is needed.
+ */
+public class ParallelToolsExample {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final int CALLS = 8;
+    private static final long TOOL_MILLIS = 200;
+
+    public static void main(String[] args) {
+        System.out.println("=".repeat(60));
+        System.out.println("Parallel Tools Example");
+        System.out.println("=".repeat(60));
+
+        SdkMcpTool slowTool = SdkMcpTool.builder()
+                .name("slow_lookup")
+                .description("Look something up slowly")
+                .inputSchema(Map.of("key", "string"))
+                .handler(input -> {
+                    try {
+                        Thread.sleep(TOOL_MILLIS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    Map<String, Object> content = Map.of("type", "text", "text", "value of " + input.get("key"));
+                    return CompletableFuture.completedFuture(Map.of("content", List.of(content)));
+                })
+                .build();
+
+        SdkMcpServer server = SdkMcpServer.builder()
+                .name("lookup")
+                .version("1.0.0")
+                .addTool(slowTool)
+                .build();
+
+        // Warm up the tool executor
+        server.handleMessage(call(0)).join();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < CALLS; i++) {
+            server.handleMessage(call(i)).join();
+        }
+        long sequential = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        List<CompletableFuture<Map<String, Object>>> responses = new ArrayList<>();
+        for (int i = 0; i < CALLS; i++) {
+            responses.add(server.handleMessage(call(i)));
+        }
+        CompletableFuture.allOf(responses.toArray(new CompletableFuture<?>[0])).join();
+        long parallel = System.nanoTime() - start;
+
+        System.out.printf("%d calls of a %d ms tool%n", CALLS, TOOL_MILLIS);
+        System.out.printf("  one at a time: %5d ms%n", sequential / 1_000_000);
+        System.out.printf("  all at once:   %5d ms%n", parallel / 1_000_000);
+        System.out.printf("  speedup:       %5.1fx%n", (double) sequential / parallel);
+    }
+
+    private static JsonNode call(int id) {
+        return MAPPER.valueToTree(Map.of(
+                "jsonrpc", "2.0",
+                "id", id,
+                "method", "tools/call",
+                "params", Map.of("name", "slow_lookup", "arguments", Map.of("key", "k" + id))
+        ));
+    }
+}
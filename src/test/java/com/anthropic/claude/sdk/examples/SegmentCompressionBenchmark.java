@@ -0,0 +1,205 @@
+package com.anthropic.claude.sdk.examples;
+
+import com.anthropic.claude.sdk.session.FileSessionStore;
+import com.anthropic.claude.sdk.session.SessionKey;
+import com.anthropic.claude.sdk.session.SessionStoreEntry;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Measures the compression ratio and read cost of compressed {@link FileSessionStore} segments.
+ * <p>
+ * Pass the path of a recorded JSONL transcript (for example one from
+ * {@code ~/.claude/projects/}) to measure it; without an argument a synthetic transcript with
+ * repeated tool schemas and file contents is used. The transcript is written to one store with
+ * plain segments and to one whose sealed segments are compressed, then both are read in full
+ * and at random offsets. Both stores live in temporary directories that are removed afterwards.
+ * No CLI or API key is needed.
+ */
+public class SegmentCompressionBenchmark {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final long SEGMENT_BYTES = 1024 * 1024;
+    private static final int RANDOM_READS = 10_000;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("=".repeat(60));
+        System.out.println("Segment Compression Benchmark");
+        System.out.println("=".repeat(60));
+
+        List<SessionStoreEntry> transcript = args.length > 0 ? read(Paths.get(args[0])) : synthetic();
+        SessionKey key = new SessionKey("bench", "session", null);
+        Path plainRoot = Files.createTempDirectory("segment-plain-bench");
+        Path compressedRoot = Files.createTempDirectory("segment-compressed-bench");
+        try {
+            write(plainRoot, key, transcript);
+            write(compressedRoot, key, transcript);
+            try (FileSessionStore plain = open(plainRoot, false);
+                 FileSessionStore compressed = open(compressedRoot, true)) {
+                // Opening the session schedules compression of its sealed segments
+                compressed.load(key).join();
+                awaitCompression(compressedRoot);
+
+                long plainBytes = sealedBytes(plainRoot, ".jsonl");
+                long compressedBytes = sealedBytes(compressedRoot, ".jsonl.deflate");
+                System.out.printf("%d entries; sealed segments %,d bytes plain, %,d bytes compressed (%.1fx)%n",
+                        transcript.size(), plainBytes, compressedBytes, (double) plainBytes / compressedBytes);
+
+                long totalBytes = totalBytes(plainRoot);
+                for (int round = 0; round < ROUNDS; round++) {
+                    boolean report = round == ROUNDS - 1;
+                    measure("plain", plain, key, totalBytes, report);
+                    measure("compressed", compressed, key, totalBytes, report);
+                }
+            }
+        } finally {
+            deleteRecursively(plainRoot);
+            deleteRecursively(compressedRoot);
+        }
+    }
+
+    private static void measure(String name, FileSessionStore store, SessionKey key, long bytes, boolean report) {
+        long start = System.nanoTime();
+        List<SessionStoreEntry> entries = store.load(key).join();
+        int touched = 0;
+        for (SessionStoreEntry entry : entries) {
+            touched += entry.data().size();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        Random random = new Random(42);
+        start = System.nanoTime();
+        for (int i = 0; i < RANDOM_READS; i++) {
+            touched += entries.get(random.nextInt(entries.size())).data().size();
+        }
+        double randomMicros = (System.nanoTime() - start) / 1_000.0 / RANDOM_READS;
+
+        if (report && touched > 0) {
+            System.out.printf("%-10s full read %7.1f MB/s of JSON, random entry %6.1f us%n",
+                    name, bytes / seconds / 1e6, randomMicros);
+        }
+    }
+
+    private static void write(Path root, SessionKey key, List<SessionStoreEntry> transcript) {
+        try (FileSessionStore store = open(root, false)) {
+            for (SessionStoreEntry entry : transcript) {
+                store.append(key, List.of(entry)).join();
+            }
+        }
+    }
+
+    private static FileSessionStore open(Path root, boolean compress) {
+        return FileSessionStore.builder()
+                .root(root)
+                .fsync(false)
+                .segmentMaxBytes(SEGMENT_BYTES)
+                .compressSealedSegments(compress)
+                .build();
+    }
+
+    /**
+     * Wait until only the active segment is left uncompressed.
+     */
+    private static void awaitCompression(Path root) throws Exception {
+        long deadline = System.nanoTime() + 60_000_000_000L;
+        while (files(root, ".jsonl").size() > 1) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("Sealed segments were not compressed within 60 seconds");
+            }
+            Thread.sleep(50);
+        }
+    }
+
+    /**
+     * Bytes in all segments with the given suffix, except the active (last) plain segment.
+     */
+    private static long sealedBytes(Path root, String suffix) throws IOException {
+        List<Path> segments = files(root, suffix);
+        if (suffix.equals(".jsonl") && !segments.isEmpty()) {
+            segments.remove(segments.size() - 1);
+        }
+        long bytes = 0;
+        for (Path segment : segments) {
+            bytes += Files.size(segment);
+        }
+        return bytes;
+    }
+
+    private static long totalBytes(Path root) throws IOException {
+        long bytes = 0;
+        for (Path segment : files(root, ".jsonl")) {
+            bytes += Files.size(segment);
+        }
+        return bytes;
+    }
+
+    private static List<Path> files(Path root, String suffix) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            return paths.filter(path -> path.getFileName().toString().endsWith(suffix))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static List<SessionStoreEntry> read(Path transcript) throws IOException {
+        List<SessionStoreEntry> entries = new ArrayList<>();
+        for (String line : Files.readAllLines(transcript)) {
+            if (line.isBlank()) {
+                continue;
+            }
+            Map<String, Object> data = MAPPER.readValue(line, new TypeReference<Map<String, Object>>() {
+            });
+            Object type = data.get("type");
+            entries.add(new SessionStoreEntry(type instanceof String ? (String) type : "entry", data));
+        }
+        return entries;
+    }
+
+    private static List<SessionStoreEntry> synthetic() {
+        String file = "public final class Main {\n    public static void main(String[] args) {\n"
+                + "        System.out.println(\"Hello\");\n    }\n}\n";
+        Map<String, Object> schema = Map.of(
+                "type", "object",
+                "properties", Map.of(
+                        "file_path", Map.of("type", "string", "description", "Absolute path of the file"),
+                        "offset", Map.of("type", "integer", "description", "Line to start reading from"),
+                        "limit", Map.of("type", "integer", "description", "Number of lines to read")),
+                "required", List.of("file_path"));
+        List<SessionStoreEntry> entries = new ArrayList<>();
+        for (int turn = 0; turn < 20_000; turn++) {
+            entries.add(new SessionStoreEntry("assistant", Map.of(
+                    "type", "assistant",
+                    "message", Map.of("content", List.of(Map.of(
+                            "type", "tool_use", "id", "toolu_" + turn, "name", "Read",
+                            "input", Map.of("file_path", "/src/Main" + turn % 50 + ".java"),
+                            "schema", schema))))));
+            entries.add(new SessionStoreEntry("user", Map.of(
+                    "type", "user",
+                    "message", Map.of("content", List.of(Map.of(
+                            "type", "tool_result", "tool_use_id", "toolu_" + turn,
+                            "content", file.repeat(1 + turn % 8)))))));
+        }
+        return entries;
+    }
+
+    private static void deleteRecursively(Path root) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+}
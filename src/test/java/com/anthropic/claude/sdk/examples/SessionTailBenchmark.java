@@ -0,0 +1,100 @@
+package com.anthropic.claude.sdk.examples;
+
+import com.anthropic.claude.sdk.session.FileSessionStore;
+import com.anthropic.claude.sdk.session.SessionKey;
+import com.anthropic.claude.sdk.session.SessionStoreEntry;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Measures reading the tail of a long session from {@link FileSessionStore}.
+ * <p>
+ * Sessions of 10k and 100k entries are written and the store is reopened, so reads come from
+ * the segment files. It then times rendering the last {@code TAIL} entries through
+ * {@link FileSessionStore#loadTail}, reaching the last entry through the lazy
+ * {@link FileSessionStore#load} view, and reading every entry. The first two should not grow
+ * with the session length. The store lives in a temporary directory that is removed afterwards.
+ * No CLI or API key is needed.
+ */
+public class SessionTailBenchmark {
+
+    private static final int[] SIZES = {10_000, 100_000};
+    private static final int TAIL = 20;
+    private static final int BATCH = 1_000;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("=".repeat(60));
+        System.out.println("Session Tail Benchmark");
+        System.out.println("=".repeat(60));
+
+        for (int size : SIZES) {
+            Path root = Files.createTempDirectory("session-tail-bench");
+            try {
+                SessionKey key = new SessionKey("bench", "session-" + size, null);
+                try (FileSessionStore store = FileSessionStore.builder().root(root).fsync(false).build()) {
+                    write(store, key, size);
+                }
+                try (FileSessionStore store = FileSessionStore.builder().root(root).build()) {
+                    for (int round = 0; round < ROUNDS; round++) {
+                        measure(store, key, size, round == ROUNDS - 1);
+                    }
+                }
+            } finally {
+                deleteRecursively(root);
+            }
+        }
+    }
+
+    private static void write(FileSessionStore store, SessionKey key, int size) {
+        for (int offset = 0; offset < size; offset += BATCH) {
+            List<SessionStoreEntry> batch = new ArrayList<>(BATCH);
+            for (int i = offset; i < offset + BATCH; i++) {
+                batch.add(new SessionStoreEntry("assistant", Map.of(
+                        "type", "assistant",
+                        "message", Map.of("content", List.of(Map.of("type", "text", "text", "Reply " + i))))));
+            }
+            store.append(key, batch).join();
+        }
+    }
+
+    private static void measure(FileSessionStore store, SessionKey key, int size, boolean report) {
+        long start = System.nanoTime();
+        int touched = 0;
+        for (SessionStoreEntry entry : store.loadTail(key, TAIL).join()) {
+            touched += entry.data().size();
+        }
+        long tail = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        List<SessionStoreEntry> view = store.load(key).join();
+        touched += view.get(view.size() - 1).data().size();
+        long last = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (SessionStoreEntry entry : store.load(key).join()) {
+            touched += entry.data().size();
+        }
+        long full = System.nanoTime() - start;
+
+        if (report && touched > 0) {
+            System.out.printf("%,7d entries: last %d %8.1f us, last entry via load %8.1f us, all entries %9.1f us%n",
+                    size, TAIL, tail / 1_000.0, last / 1_000.0, full / 1_000.0);
+        }
+    }
+
+    private static void deleteRecursively(Path root) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+}
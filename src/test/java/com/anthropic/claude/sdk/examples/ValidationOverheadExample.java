@@ -0,0 +1,101 @@
+package com.anthropic.claude.sdk.examples;
+
+import com.anthropic.claude.sdk.mcp.SdkMcpServer;
+import com.anthropic.claude.sdk.mcp.SdkMcpTool;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Measures the per-call cost of validating tool arguments against the input schema.
+ * <p>
+ * Two copies of the same tool, one with {@code validateInput(false)}, are called repeatedly
+ * through {@link SdkMcpServer#handleMessage}; the difference in time per call is the validator's
+ * overhead. It also shows the error returned for arguments that don't match the schema. No CLI
+ * or API key is needed.
+ */
+public class ValidationOverheadExample {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final int WARMUP = 50_000;
+    private static final int ITERATIONS = 200_000;
+
+    public static void main(String[] args) {
+        System.out.println("=".repeat(60));
+        System.out.println("Validation Overhead Example");
+        System.out.println("=".repeat(60));
+
+        Map<String, Object> schema = Map.of(
+                "type", "object",
+                "properties", Map.of(
+                        "city", Map.of("type", "string", "minLength", 1, "maxLength", 100),
+                        "days", Map.of("type", "integer", "minimum", 1, "maximum", 14),
+                        "units", Map.of("enum", List.of("metric", "imperial")),
+                        "fields", Map.of("type", "array", "items", Map.of("type", "string"), "maxItems", 10)
+                ),
+                "required", List.of("city", "days"),
+                "additionalProperties", false
+        );
+
+        SdkMcpServer server = SdkMcpServer.builder()
+                .name("weather")
+                .version("1.0.0")
+                .addTool(forecastTool("validated", schema, true))
+                .addTool(forecastTool("unvalidated", schema, false))
+                .build();
+
+        Map<String, Object> arguments = Map.of(
+                "city", "Lisbon",
+                "days", 5,
+                "units", "metric",
+                "fields", List.of("temperature", "rain", "wind")
+        );
+        JsonNode validated = call("validated", arguments);
+        JsonNode unvalidated = call("unvalidated", arguments);
+
+        // Alternate the two so neither benefits from running second
+        for (int round = 0; round < 3; round++) {
+            double off = nanosPerCall(server, unvalidated);
+            double on = nanosPerCall(server, validated);
+            System.out.printf("round %d: %6.0f ns/call without validation, %6.0f ns/call with (%+.0f ns)%n",
+                    round + 1, off, on, on - off);
+        }
+
+        JsonNode invalid = call("validated", Map.of("city", "Lisbon", "days", "five"));
+        System.out.println("\nInvalid arguments: " + server.handleMessage(invalid).join().get("error"));
+    }
+
+    private static SdkMcpTool forecastTool(String name, Map<String, Object> schema, boolean validate) {
+        Map<String, Object> result = Map.of("content", List.of(Map.of("type", "text", "text", "Sunny")));
+        return SdkMcpTool.builder()
+                .name(name)
+                .description("Weather forecast")
+                .inputSchema(schema)
+                .validateInput(validate)
+                .handler(input -> CompletableFuture.completedFuture(result))
+                .build();
+    }
+
+    private static double nanosPerCall(SdkMcpServer server, JsonNode message) {
+        for (int i = 0; i < WARMUP; i++) {
+            server.handleMessage(message).join();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            server.handleMessage(message).join();
+        }
+        return (double) (System.nanoTime() - start) / ITERATIONS;
+    }
+
+    private static JsonNode call(String tool, Map<String, Object> arguments) {
+        return MAPPER.valueToTree(Map.of(
+                "jsonrpc", "2.0",
+                "id", 1,
+                "method", "tools/call",
+                "params", Map.of("name", tool, "arguments", arguments)
+        ));
+    }
+}